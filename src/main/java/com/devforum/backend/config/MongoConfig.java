@@ -1,5 +1,7 @@
 package com.devforum.backend.config;
 
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.service.HotRank;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -7,8 +9,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
 import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
 @Slf4j
 @Configuration
@@ -53,9 +61,11 @@ public class MongoConfig {
             new Index("email", Sort.Direction.ASC).unique()
         );
         
-        // Reputation index for leaderboards
+        // Reputation index for leaderboards (_id keeps cursor pages in index order)
         mongoTemplate.indexOps("users").ensureIndex(
-            new Index("reputation", Sort.Direction.DESC)
+            new Index()
+                .on("reputation", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
         );
         
         // Role index for admin queries
@@ -77,6 +87,7 @@ public class MongoConfig {
             new Index()
                 .on("deleted", Sort.Direction.ASC)
                 .on("createdAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
         );
         
         // Index for sorting by votes
@@ -84,6 +95,42 @@ public class MongoConfig {
             new Index("upvotes", Sort.Direction.DESC)
         );
         
+        // Compound index for the hot feed (_id is the ranking tie-breaker)
+        mongoTemplate.indexOps("posts").ensureIndex(
+            new Index()
+                .on("deleted", Sort.Direction.ASC)
+                .on("hotRank", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+        );
+        
+        // Compound index for the top feed
+        mongoTemplate.indexOps("posts").ensureIndex(
+            new Index()
+                .on("deleted", Sort.Direction.ASC)
+                .on("upvotes", Sort.Direction.DESC)
+                .on("downvotes", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.DESC)
+        );
+        
+        // Backfill the hot rank on posts created before it was persisted
+        long ranked = mongoTemplate.updateMulti(
+            Query.query(Criteria.where("hotRank").exists(false)), HotRank.refresh(), "posts"
+        ).getModifiedCount();
+        if (ranked > 0) {
+            log.info("Backfilled hot rank on {} posts", ranked);
+        }
+        
+        // Backfill list-view excerpts on posts created before they were stored
+        long excerpted = mongoTemplate.updateMulti(
+            Query.query(Criteria.where("excerpt").exists(false).and("body").exists(true)),
+            AggregationUpdate.update().set("excerpt")
+                .toValue(StringOperators.valueOf("body").substringCP(0, Post.EXCERPT_LENGTH)),
+            "posts"
+        ).getModifiedCount();
+        if (excerpted > 0) {
+            log.info("Backfilled excerpts on {} posts", excerpted);
+        }
+        
         // Index for last activity (trending posts)
         mongoTemplate.indexOps("posts").ensureIndex(
             new Index("lastActivityAt", Sort.Direction.DESC)
@@ -127,6 +174,18 @@ public class MongoConfig {
                 .on("createdAt", Sort.Direction.ASC)
         );
         
+        // Materialized path and ancestors: subtree reads, counts and deletes are one indexed scan
+        mongoTemplate.indexOps("comments").ensureIndex(
+            new Index()
+                .on("post", Sort.Direction.ASC)
+                .on("path", Sort.Direction.ASC)
+        );
+        mongoTemplate.indexOps("comments").ensureIndex(
+            new Index()
+                .on("post", Sort.Direction.ASC)
+                .on("ancestors", Sort.Direction.ASC)
+        );
+        
         // Index for nested comments (parent-child relationship)
         mongoTemplate.indexOps("comments").ensureIndex(
             new Index("parentComment", Sort.Direction.ASC)
@@ -153,13 +212,24 @@ public class MongoConfig {
     }
     
     private void createVoteIndexes() {
-        // Compound unique index to prevent duplicate votes
+        // Indexes on the legacy user DBRef go first: new votes carry no user field, so the old
+        // unique index would see every one of them as user=null and reject the second voter
+        for (IndexInfo index : mongoTemplate.indexOps("votes").getIndexInfo()) {
+            if (index.getIndexFields().stream().anyMatch(field -> "user".equals(field.getKey()))) {
+                mongoTemplate.indexOps("votes").dropIndex(index.getName());
+                log.info("Dropped legacy vote index {}", index.getName());
+            }
+        }
+        
+        // Compound unique index to prevent duplicate votes; partial so legacy votes that
+        // still carry the user DBRef don't collide on a missing userId until migrated
         mongoTemplate.indexOps("votes").ensureIndex(
             new Index()
-                .on("user", Sort.Direction.ASC)
+                .on("userId", Sort.Direction.ASC)
                 .on("targetType", Sort.Direction.ASC)
                 .on("targetId", Sort.Direction.ASC)
                 .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("userId").exists(true)))
         );
         
         // Index for querying votes by target
@@ -171,7 +241,7 @@ public class MongoConfig {
         
         // Index for user's votes
         mongoTemplate.indexOps("votes").ensureIndex(
-            new Index("user", Sort.Direction.ASC)
+            new Index("userId", Sort.Direction.ASC)
         );
         
         log.info("Vote indexes created");
@@ -1,14 +1,32 @@
 package com.devforum.backend.controller;
 
-import com.devforum.backend.dto.PostDTO;
+import com.devforum.backend.dto.PostSummaryDTO;
 import com.devforum.backend.dto.UserProfileDTO;
 import com.devforum.backend.entity.User;
+import com.devforum.backend.service.AutocompleteIndex;
+import com.devforum.backend.service.CommentPathMigration;
+import com.devforum.backend.service.CommentTreeCache;
+import com.devforum.backend.service.CounterReconciler;
+import com.devforum.backend.service.FeedRanking;
+import com.devforum.backend.service.FeedResponseCache;
+import com.devforum.backend.service.PageCounts;
+import com.devforum.backend.service.PostBodyCompressionMigration;
+import com.devforum.backend.service.PostBodyCompressor;
+import com.devforum.backend.service.PostCache;
 import com.devforum.backend.service.PostService;
+import com.devforum.backend.service.ReputationLedger;
+import com.devforum.backend.service.TagIndex;
+import com.devforum.backend.service.TagService;
 import com.devforum.backend.service.UserService;
+import com.devforum.backend.service.UserVoteCache;
+import com.devforum.backend.service.ViewCounter;
+import com.devforum.backend.service.VoteAggregationBuffer;
+import com.devforum.backend.service.VoteUserIdMigration;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,6 +43,23 @@ public class AdminController {
     
     private final UserService userService;
     private final PostService postService;
+    private final VoteAggregationBuffer voteAggregationBuffer;
+    private final UserVoteCache userVoteCache;
+    private final ReputationLedger reputationLedger;
+    private final VoteUserIdMigration voteUserIdMigration;
+    private final PostBodyCompressor postBodyCompressor;
+    private final PostBodyCompressionMigration postBodyCompressionMigration;
+    private final CommentPathMigration commentPathMigration;
+    private final CounterReconciler counterReconciler;
+    private final FeedRanking feedRanking;
+    private final ViewCounter viewCounter;
+    private final PageCounts pageCounts;
+    private final PostCache postCache;
+    private final CommentTreeCache commentTreeCache;
+    private final FeedResponseCache feedResponseCache;
+    private final TagIndex tagIndex;
+    private final TagService tagService;
+    private final AutocompleteIndex autocompleteIndex;
     
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboard() {
@@ -39,11 +74,11 @@ public class AdminController {
             
             // Recent activity
             Pageable recentPageable = PageRequest.of(0, 5, Sort.by("createdAt").descending());
-            Page<PostDTO> recentPosts = postService.getPosts(recentPageable, "recent");
+            Slice<PostSummaryDTO> recentPosts = postService.getPosts(recentPageable, "recent", PageCounts.Mode.NONE);
             dashboard.put("recentPosts", recentPosts.getContent());
             
             // Top users
-            Page<UserProfileDTO> topUsers = userService.getTopUsersByReputation(PageRequest.of(0, 5));
+            Slice<UserProfileDTO> topUsers = userService.getTopUsersByReputation(PageRequest.of(0, 5), PageCounts.Mode.NONE);
             dashboard.put("topUsers", topUsers.getContent());
             
             return ResponseEntity.ok(dashboard);
@@ -83,14 +118,14 @@ public class AdminController {
     }
     
     @GetMapping("/posts/flagged")
-    public ResponseEntity<Page<PostDTO>> getFlaggedPosts(
+    public ResponseEntity<Page<PostSummaryDTO>> getFlaggedPosts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
             // This would typically show posts that have been reported or have negative scores
             // For now, let's show posts sorted by score ascending (potentially problematic posts)
             Pageable pageable = PageRequest.of(page, size, Sort.by("upvotes").ascending());
-            Page<PostDTO> posts = postService.getPosts(pageable, "recent");
+            Page<PostSummaryDTO> posts = postService.getPosts(pageable, "recent");
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -153,4 +188,198 @@ public class AdminController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    @GetMapping("/votes/write-behind")
+    public ResponseEntity<Map<String, Object>> getVoteBufferStats() {
+        return ResponseEntity.ok(voteAggregationBuffer.getStats());
+    }
+    
+    @PostMapping("/votes/write-behind/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> flushVoteBuffer() {
+        try {
+            voteAggregationBuffer.flush();
+            return ResponseEntity.ok(voteAggregationBuffer.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/votes/cache")
+    public ResponseEntity<Map<String, Object>> getVoteCacheStats() {
+        return ResponseEntity.ok(userVoteCache.getStats());
+    }
+    
+    @GetMapping("/reputation/ledger")
+    public ResponseEntity<Map<String, Object>> getReputationLedgerStats() {
+        return ResponseEntity.ok(reputationLedger.getStats());
+    }
+    
+    @GetMapping("/migrations/vote-user-id")
+    public ResponseEntity<Map<String, Object>> getVoteUserIdMigrationStatus() {
+        try {
+            return ResponseEntity.ok(voteUserIdMigration.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/migrations/vote-user-id")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startVoteUserIdMigration() {
+        if (!voteUserIdMigration.start()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Migration is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Vote userId migration started"));
+    }
+    
+    @GetMapping("/counters/reconcile")
+    public ResponseEntity<Map<String, Object>> getCounterReconcileStatus() {
+        return ResponseEntity.ok(counterReconciler.getStatus());
+    }
+    
+    @PostMapping("/counters/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startCounterReconcile() {
+        if (!counterReconciler.start()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Counter reconciliation is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Counter reconciliation started"));
+    }
+    
+    @GetMapping("/ranking")
+    public ResponseEntity<Map<String, Object>> getFeedRankingStats() {
+        return ResponseEntity.ok(feedRanking.getStats());
+    }
+    
+    @PostMapping("/ranking/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildFeedRanking() {
+        try {
+            feedRanking.rebuild();
+            return ResponseEntity.ok(feedRanking.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/views")
+    public ResponseEntity<Map<String, Object>> getViewCounterStats() {
+        return ResponseEntity.ok(viewCounter.getStats());
+    }
+    
+    @GetMapping("/counts")
+    public ResponseEntity<Map<String, Object>> getPageCountStats() {
+        return ResponseEntity.ok(pageCounts.getStats());
+    }
+    
+    @GetMapping("/posts/cache")
+    public ResponseEntity<Map<String, Object>> getPostCacheStats() {
+        return ResponseEntity.ok(postCache.getStats());
+    }
+    
+    @GetMapping("/comments/cache")
+    public ResponseEntity<Map<String, Object>> getCommentTreeCacheStats() {
+        return ResponseEntity.ok(commentTreeCache.getStats());
+    }
+    
+    @GetMapping("/responses/cache")
+    public ResponseEntity<Map<String, Object>> getResponseCacheStats() {
+        return ResponseEntity.ok(feedResponseCache.getStats());
+    }
+    
+    @GetMapping("/tags/index")
+    public ResponseEntity<Map<String, Object>> getTagIndexStats() {
+        return ResponseEntity.ok(tagIndex.getStats());
+    }
+    
+    @PostMapping("/tags/index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildTagIndex() {
+        try {
+            tagIndex.rebuild();
+            return ResponseEntity.ok(tagIndex.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/tags/popular")
+    public ResponseEntity<Map<String, Object>> getPopularTagStats() {
+        return ResponseEntity.ok(tagService.getStats());
+    }
+    
+    @PostMapping("/tags/popular/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> refreshPopularTags() {
+        tagService.refreshPopularTags();
+        return ResponseEntity.ok(tagService.getStats());
+    }
+    
+    @GetMapping("/search/autocomplete")
+    public ResponseEntity<Map<String, Object>> getAutocompleteStats() {
+        return ResponseEntity.ok(autocompleteIndex.getStats());
+    }
+    
+    @PostMapping("/search/autocomplete/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildAutocompleteIndex() {
+        try {
+            autocompleteIndex.rebuild();
+            return ResponseEntity.ok(autocompleteIndex.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/storage")
+    public ResponseEntity<Map<String, Object>> getStorageReport() {
+        try {
+            Map<String, Object> report = postBodyCompressionMigration.getStorageReport();
+            report.put("bodyCompression", postBodyCompressor.getStats());
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/migrations/post-body-compression")
+    public ResponseEntity<Map<String, Object>> getPostBodyCompressionStatus() {
+        try {
+            return ResponseEntity.ok(postBodyCompressionMigration.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/migrations/post-body-compression")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startPostBodyCompression() {
+        try {
+            if (!postBodyCompressionMigration.start()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Migration is already running"));
+            }
+            return ResponseEntity.accepted().body(Map.of("message", "Post body compression started"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/migrations/comment-path")
+    public ResponseEntity<Map<String, Object>> getCommentPathMigrationStatus() {
+        try {
+            return ResponseEntity.ok(commentPathMigration.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/migrations/comment-path")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startCommentPathMigration() {
+        if (!commentPathMigration.start()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Migration is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Comment path backfill started"));
+    }
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package com.devforum.backend.controller;
 
 import com.devforum.backend.dto.CommentDTO;
 import com.devforum.backend.dto.CreateCommentRequest;
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.UpdateCommentRequest;
 import com.devforum.backend.service.CommentService;
+import com.devforum.backend.service.CommentTree;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,7 +16,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -36,12 +37,16 @@ public class CommentController {
     }
     
     @GetMapping("/post/{postId}")
-    public ResponseEntity<List<CommentDTO>> getCommentsForPost(
+    public ResponseEntity<CursorPage<CommentDTO>> getCommentsForPost(
             @PathVariable String postId,
-            @RequestParam(defaultValue = "5") int maxDepth) {
+            @RequestParam(defaultValue = "5") int maxDepth,
+            @RequestParam(defaultValue = "oldest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<CommentDTO> comments = commentService.getCommentsForPost(postId, maxDepth);
-            return ResponseEntity.ok(comments);
+            return ResponseEntity.ok(commentService.getCommentTree(
+                    postId, CommentTree.Order.of(sort), maxDepth, cursor, size, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -79,6 +84,19 @@ public class CommentController {
         }
     }
     
+    @GetMapping("/post/{postId}/top-level/cursor")
+    public ResponseEntity<CursorPage<CommentDTO>> getTopLevelCommentsByCursor(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "score") String sort) {
+        try {
+            return ResponseEntity.ok(commentService.getTopLevelCommentsByCursor(postId, sort, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<CommentDTO> getComment(@PathVariable String id) {
         try {
@@ -89,6 +107,40 @@ public class CommentController {
         }
     }
     
+    @GetMapping("/{id}/replies")
+    public ResponseEntity<CursorPage<CommentDTO>> getReplies(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "oldest") String sort) {
+        try {
+            return ResponseEntity.ok(commentService.getReplies(id, CommentTree.Order.of(sort), cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/subtree")
+    public ResponseEntity<CommentDTO> getCommentSubtree(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "5") int maxDepth,
+            @RequestParam(defaultValue = "oldest") String sort) {
+        try {
+            return ResponseEntity.ok(commentService.getCommentSubtree(id, maxDepth, CommentTree.Order.of(sort)));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/descendants/count")
+    public ResponseEntity<Map<String, Object>> countDescendants(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(Map.of("commentId", id, "descendants", commentService.countDescendants(id)));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<CommentDTO> updateComment(
@@ -113,6 +165,17 @@ public class CommentController {
         }
     }
     
+    @DeleteMapping("/{id}/subtree")
+    @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> deleteCommentSubtree(@PathVariable String id) {
+        try {
+            long deleted = commentService.deleteCommentSubtree(id);
+            return ResponseEntity.ok(Map.of("message", "Comment thread deleted successfully", "deleted", deleted));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/user/{username}")
     public ResponseEntity<Page<CommentDTO>> getCommentsByUser(
             @PathVariable String username,
@@ -126,4 +189,16 @@ public class CommentController {
             return ResponseEntity.notFound().build();
         }
     }
+    
+    @GetMapping("/user/{username}/cursor")
+    public ResponseEntity<CursorPage<CommentDTO>> getCommentsByUserCursor(
+            @PathVariable String username,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(commentService.getCommentsByUserCursor(username, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
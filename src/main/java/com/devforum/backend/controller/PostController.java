@@ -1,14 +1,20 @@
 package com.devforum.backend.controller;
 
 import com.devforum.backend.dto.CreatePostRequest;
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.PostDTO;
+import com.devforum.backend.dto.PostSummaryDTO;
 import com.devforum.backend.dto.UpdatePostRequest;
+import com.devforum.backend.service.FeedResponseCache;
+import com.devforum.backend.service.PageCounts;
 import com.devforum.backend.service.PostService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -23,6 +29,7 @@ import java.util.Map;
 public class PostController {
     
     private final PostService postService;
+    private final FeedResponseCache feedResponseCache;
     
     @PostMapping
     @PreAuthorize("hasRole('USER')")
@@ -36,10 +43,12 @@ public class PostController {
     }
     
     @GetMapping
-    public ResponseEntity<Page<PostDTO>> getPosts(
+    public ResponseEntity<?> getPosts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "recent") String sort) {
+            @RequestParam(defaultValue = "recent") String sort,
+            @RequestParam(defaultValue = "exact") String count,
+            HttpServletRequest request) {
         try {
             Pageable pageable;
             switch (sort.toLowerCase()) {
@@ -56,17 +65,37 @@ public class PostController {
                     break;
             }
             
-            Page<PostDTO> posts = postService.getPosts(pageable, sort);
+            PageCounts.Mode countMode = PageCounts.Mode.of(count);
+            if (feedResponseCache.isCacheable(page)) {
+                String key = "posts?sort=" + sort.toLowerCase() + "&page=" + page + "&size=" + size
+                    + "&count=" + countMode;
+                return feedResponseCache.slice(key, request, () -> postService.getPosts(pageable, sort, countMode));
+            }
+            
+            Slice<PostSummaryDTO> posts = postService.getPosts(pageable, sort, countMode);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<PostSummaryDTO>> getPostsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "recent") String sort) {
+        try {
+            return ResponseEntity.ok(postService.getPostsByCursor(sort, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<PostDTO> getPost(@PathVariable String id) {
+    public ResponseEntity<PostDTO> getPost(@PathVariable String id, HttpServletRequest request) {
         try {
-            PostDTO post = postService.getPost(id);
+            // The client address as resolved by Tomcat from trusted proxies' forwarded headers, not the proxy's
+            PostDTO post = postService.getPost(id, request.getRemoteAddr());
             return ResponseEntity.ok(post);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
@@ -98,41 +127,103 @@ public class PostController {
     }
     
     @GetMapping("/author/{username}")
-    public ResponseEntity<Page<PostDTO>> getPostsByAuthor(
+    public ResponseEntity<Slice<PostSummaryDTO>> getPostsByAuthor(
             @PathVariable String username,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<PostDTO> posts = postService.getPostsByAuthor(username, pageable);
+            Slice<PostSummaryDTO> posts = postService.getPostsByAuthor(username, pageable, PageCounts.Mode.of(count));
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    @GetMapping("/author/{username}/cursor")
+    public ResponseEntity<CursorPage<PostSummaryDTO>> getPostsByAuthorCursor(
+            @PathVariable String username,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(postService.getPostsByAuthorCursor(username, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/tag/{tag}")
-    public ResponseEntity<Page<PostDTO>> getPostsByTag(
+    public ResponseEntity<?> getPostsByTag(
             @PathVariable String tag,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "recent") String sort,
+            @RequestParam(defaultValue = "exact") String count,
+            HttpServletRequest request) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<PostDTO> posts = postService.getPostsByTag(tag, pageable);
+            PageCounts.Mode countMode = PageCounts.Mode.of(count);
+            if (feedResponseCache.isCacheable(page)) {
+                String key = "posts/tag/" + tag + "?sort=" + sort.toLowerCase() + "&page=" + page + "&size=" + size
+                    + "&count=" + countMode;
+                return feedResponseCache.slice(key, request,
+                    () -> postService.getPostsByTag(tag, pageable, sort, countMode));
+            }
+            
+            Slice<PostSummaryDTO> posts = postService.getPostsByTag(tag, pageable, sort, countMode);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @GetMapping("/tags")
+    public ResponseEntity<Page<PostSummaryDTO>> getPostsByTags(
+            @RequestParam(defaultValue = "") List<String> all,
+            @RequestParam(defaultValue = "") List<String> any,
+            @RequestParam(defaultValue = "") List<String> none,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Page<PostSummaryDTO> posts = postService.getPostsByTags(
+                withoutBlanks(all), withoutBlanks(any), withoutBlanks(none), PageRequest.of(page, size));
+            return ResponseEntity.ok(posts);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/tag/{tag}/cursor")
+    public ResponseEntity<CursorPage<PostSummaryDTO>> getPostsByTagCursor(
+            @PathVariable String tag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "recent") String sort) {
+        try {
+            return ResponseEntity.ok(postService.getPostsByTagCursor(tag, sort, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/search")
-    public ResponseEntity<Page<PostDTO>> searchPosts(
+    public ResponseEntity<?> searchPosts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count,
+            HttpServletRequest request) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<PostDTO> posts = postService.searchPosts(q, pageable);
+            PageCounts.Mode countMode = PageCounts.Mode.of(count);
+            if (feedResponseCache.isCacheable(page)) {
+                String key = "posts/search?q=" + q + "&page=" + page + "&size=" + size
+                    + "&count=" + countMode;
+                return feedResponseCache.slice(key, request, () -> postService.searchPosts(q, pageable, countMode));
+            }
+            
+            Slice<PostSummaryDTO> posts = postService.searchPosts(q, pageable, countMode);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -140,9 +231,13 @@ public class PostController {
     }
     
     @GetMapping("/pinned")
-    public ResponseEntity<List<PostDTO>> getPinnedPosts() {
+    public ResponseEntity<?> getPinnedPosts(HttpServletRequest request) {
         try {
-            List<PostDTO> posts = postService.getPinnedPosts();
+            if (feedResponseCache.isCacheable(0)) {
+                return feedResponseCache.list("posts/pinned", request, postService::getPinnedPosts);
+            }
+            
+            List<PostSummaryDTO> posts = postService.getPinnedPosts();
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -170,4 +265,8 @@ public class PostController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+    
+    private static List<String> withoutBlanks(List<String> tags) {
+        return tags.stream().map(String::trim).filter(tag -> !tag.isEmpty()).distinct().toList();
+    }
+}
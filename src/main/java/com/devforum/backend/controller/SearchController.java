@@ -1,18 +1,24 @@
 package com.devforum.backend.controller;
 
-import com.devforum.backend.dto.PostDTO;
+import com.devforum.backend.dto.PostSummaryDTO;
 import com.devforum.backend.dto.UserProfileDTO;
+import com.devforum.backend.service.FeedResponseCache;
+import com.devforum.backend.service.PageCounts;
 import com.devforum.backend.service.PostService;
+import com.devforum.backend.service.TagService;
 import com.devforum.backend.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -22,6 +28,8 @@ public class SearchController {
     
     private final PostService postService;
     private final UserService userService;
+    private final TagService tagService;
+    private final FeedResponseCache feedResponseCache;
     
     @GetMapping
     public ResponseEntity<Map<String, Object>> globalSearch(
@@ -36,7 +44,7 @@ public class SearchController {
             
             switch (type.toLowerCase()) {
                 case "posts":
-                    Page<PostDTO> posts = postService.searchPosts(q, pageable);
+                    Page<PostSummaryDTO> posts = postService.searchPosts(q, pageable);
                     results.put("posts", posts);
                     break;
                 case "users":
@@ -45,7 +53,7 @@ public class SearchController {
                     break;
                 case "all":
                 default:
-                    Page<PostDTO> allPosts = postService.searchPosts(q, PageRequest.of(0, 10));
+                    Page<PostSummaryDTO> allPosts = postService.searchPosts(q, PageRequest.of(0, 10));
                     Page<UserProfileDTO> allUsers = userService.searchUsers(q, PageRequest.of(0, 5));
                     results.put("posts", allPosts);
                     results.put("users", allUsers);
@@ -63,11 +71,13 @@ public class SearchController {
     }
     
     @GetMapping("/posts")
-    public ResponseEntity<Page<PostDTO>> searchPosts(
+    public ResponseEntity<?> searchPosts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "relevance") String sort) {
+            @RequestParam(defaultValue = "relevance") String sort,
+            @RequestParam(defaultValue = "exact") String count,
+            HttpServletRequest request) {
         try {
             Sort sortCriteria;
             switch (sort.toLowerCase()) {
@@ -87,7 +97,15 @@ public class SearchController {
             }
             
             Pageable pageable = PageRequest.of(page, size, sortCriteria);
-            Page<PostDTO> posts = postService.searchPosts(q, pageable);
+            PageCounts.Mode countMode = PageCounts.Mode.of(count);
+            if (feedResponseCache.isCacheable(page)) {
+                // Keyed by the resolved sort, so sort names that map to the same order share an entry
+                String key = "search/posts?q=" + q + "&sort=" + sortCriteria + "&page=" + page + "&size=" + size
+                    + "&count=" + countMode;
+                return feedResponseCache.slice(key, request, () -> postService.searchPosts(q, pageable, countMode));
+            }
+            
+            Slice<PostSummaryDTO> posts = postService.searchPosts(q, pageable, countMode);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -95,13 +113,14 @@ public class SearchController {
     }
     
     @GetMapping("/users")
-    public ResponseEntity<Page<UserProfileDTO>> searchUsers(
+    public ResponseEntity<Slice<UserProfileDTO>> searchUsers(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("reputation").descending());
-            Page<UserProfileDTO> users = userService.searchUsers(q, pageable);
+            Slice<UserProfileDTO> users = userService.searchUsers(q, pageable, PageCounts.Mode.of(count));
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -115,7 +134,7 @@ public class SearchController {
             Map<String, Object> suggestions = new HashMap<>();
             
             // Get top matching posts (limited results for suggestions)
-            Page<PostDTO> postSuggestions = postService.searchPosts(q, PageRequest.of(0, 5));
+            Page<PostSummaryDTO> postSuggestions = postService.searchPosts(q, PageRequest.of(0, 5));
             Page<UserProfileDTO> userSuggestions = userService.searchUsers(q, PageRequest.of(0, 3));
             
             suggestions.put("posts", postSuggestions.getContent());
@@ -128,6 +147,35 @@ public class SearchController {
         }
     }
     
+    @GetMapping("/autocomplete")
+    public ResponseEntity<Map<String, Object>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            Map<String, Object> completions = new LinkedHashMap<>();
+            completions.put("query", q);
+            
+            switch (type.toLowerCase()) {
+                case "tags":
+                    completions.put("tags", tagService.autocomplete(q, limit));
+                    break;
+                case "users":
+                    completions.put("users", userService.autocomplete(q, limit));
+                    break;
+                case "all":
+                default:
+                    completions.put("tags", tagService.autocomplete(q, limit));
+                    completions.put("users", userService.autocomplete(q, limit));
+                    break;
+            }
+            
+            return ResponseEntity.ok(completions);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     private long getTotalResults(Map<String, Object> results) {
         long total = 0;
         if (results.containsKey("posts")) {
@@ -0,0 +1,71 @@
+package com.devforum.backend.controller;
+
+import com.devforum.backend.dto.TagDTO;
+import com.devforum.backend.service.TagService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/tags")
+@RequiredArgsConstructor
+public class TagController {
+    
+    private final TagService tagService;
+    
+    @GetMapping("/popular")
+    public ResponseEntity<List<TagDTO>> getPopularTags(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(tagService.getPopularTags(limit));
+    }
+    
+    @GetMapping("/trending")
+    public ResponseEntity<Page<TagDTO>> getTrendingTags(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            return ResponseEntity.ok(tagService.getTrendingTags(pageable));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<Page<TagDTO>> searchTags(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            return ResponseEntity.ok(tagService.searchTags(q, pageable));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{name}")
+    public ResponseEntity<TagDTO> getTag(@PathVariable String name) {
+        try {
+            return ResponseEntity.ok(tagService.getTag(name));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PutMapping("/{name}")
+    @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN')")
+    public ResponseEntity<TagDTO> updateTag(@PathVariable String name, @RequestBody Map<String, String> updates) {
+        try {
+            return ResponseEntity.ok(tagService.updateTag(name, updates));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
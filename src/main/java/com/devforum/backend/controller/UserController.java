@@ -1,12 +1,14 @@
 package com.devforum.backend.controller;
 
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.UserProfileDTO;
 import com.devforum.backend.entity.User;
+import com.devforum.backend.service.PageCounts;
 import com.devforum.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -59,13 +61,14 @@ public class UserController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<UserProfileDTO>> searchUsers(
+    public ResponseEntity<Slice<UserProfileDTO>> searchUsers(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("reputation").descending());
-            Page<UserProfileDTO> users = userService.searchUsers(query, pageable);
+            Slice<UserProfileDTO> users = userService.searchUsers(query, pageable, PageCounts.Mode.of(count));
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -73,28 +76,41 @@ public class UserController {
     }
     
     @GetMapping("/top")
-    public ResponseEntity<Page<UserProfileDTO>> getTopUsers(
+    public ResponseEntity<Slice<UserProfileDTO>> getTopUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<UserProfileDTO> users = userService.getTopUsersByReputation(pageable);
+            Slice<UserProfileDTO> users = userService.getTopUsersByReputation(pageable, PageCounts.Mode.of(count));
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @GetMapping("/top/cursor")
+    public ResponseEntity<CursorPage<UserProfileDTO>> getTopUsersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(userService.getTopUsersByCursor(cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/by-role/{role}")
     @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN')")
-    public ResponseEntity<Page<UserProfileDTO>> getUsersByRole(
+    public ResponseEntity<Slice<UserProfileDTO>> getUsersByRole(
             @PathVariable String role,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
             User.Role userRole = User.Role.valueOf(role.toUpperCase());
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<UserProfileDTO> users = userService.getUsersByRole(userRole, pageable);
+            Slice<UserProfileDTO> users = userService.getUsersByRole(userRole, pageable, PageCounts.Mode.of(count));
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
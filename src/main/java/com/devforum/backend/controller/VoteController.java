@@ -1,5 +1,7 @@
 package com.devforum.backend.controller;
 
+import com.devforum.backend.dto.BatchVoteRequest;
+import com.devforum.backend.dto.BatchVoteResult;
 import com.devforum.backend.dto.VoteRequest;
 import com.devforum.backend.entity.Vote;
 import com.devforum.backend.service.VoteService;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -38,6 +41,20 @@ public class VoteController {
         }
     }
     
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> voteBatch(@Valid @RequestBody BatchVoteRequest request) {
+        try {
+            List<BatchVoteResult> results = voteService.voteBatch(request.getVotes());
+            return ResponseEntity.ok(Map.of(
+                "message", "Batch processed",
+                "results", results
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{targetType}/{targetId}")
     public ResponseEntity<Map<String, String>> getUserVote(
             @PathVariable String targetType,
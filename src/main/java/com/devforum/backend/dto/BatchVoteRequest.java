@@ -0,0 +1,16 @@
+package com.devforum.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchVoteRequest {
+    
+    @NotEmpty(message = "At least one vote is required")
+    @Valid
+    private List<VoteRequest> votes = new ArrayList<>();
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.devforum.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchVoteResult {
+    
+    private String targetId;
+    private String targetType;
+    private String voteType;
+    private String action; // "created", "updated", "removed", or null on error
+    private String error;
+    
+    public static BatchVoteResult success(VoteRequest request, String action) {
+        return BatchVoteResult.builder()
+                .targetId(request.getTargetId())
+                .targetType(request.getTargetType())
+                .voteType(request.getVoteType())
+                .action(action)
+                .build();
+    }
+    
+    public static BatchVoteResult failure(VoteRequest request, String error) {
+        return BatchVoteResult.builder()
+                .targetId(request.getTargetId())
+                .targetType(request.getTargetType())
+                .voteType(request.getVoteType())
+                .error(error)
+                .build();
+    }
+}
\ No newline at end of file
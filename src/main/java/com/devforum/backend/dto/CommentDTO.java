@@ -37,6 +37,11 @@ public class CommentDTO {
     @Builder.Default
     private List<CommentDTO> replies = new ArrayList<>();
     
+    // Set when replies is capped: how many direct replies were left out, and the cursor for
+    // /api/comments/{id}/replies that continues after the last one included (null to start over)
+    private Long remainingReplies;
+    private String repliesCursor;
+    
     public static CommentDTO fromComment(Comment comment) {
         return CommentDTO.builder()
                 .id(comment.getId())
@@ -0,0 +1,24 @@
+package com.devforum.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+
+    // Opaque token for the next page; null on the last page
+    private String nextCursor;
+    private boolean hasNext;
+
+    public static <T> CursorPage<T> of(List<T> content, String nextCursor) {
+        return new CursorPage<>(content, content.size(), nextCursor, nextCursor != null);
+    }
+}
@@ -25,6 +25,7 @@ public class PostDTO {
     private Integer score;
     private Integer commentCount;
     private Integer viewCount;
+    private Long uniqueViewers;
     private Boolean pinned;
     private Boolean locked;
     private LocalDateTime createdAt;
@@ -47,12 +48,13 @@ public class PostDTO {
                 .score(post.getScore())
                 .commentCount(post.getCommentCount())
                 .viewCount(post.getViewCount())
+                .uniqueViewers(post.getUniqueViewers())
                 .pinned(post.getPinned())
                 .locked(post.getLocked())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
                 .lastActivityAt(post.getLastActivityAt())
-                .hotScore(post.getHotScore())
+                .hotScore(post.getHotRank())
                 .build();
     }
     
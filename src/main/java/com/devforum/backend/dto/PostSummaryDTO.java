@@ -0,0 +1,70 @@
+package com.devforum.backend.dto;
+
+import com.devforum.backend.entity.Post;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * List-view representation of a post: everything in {@link PostDTO} except the body, which is
+ * replaced by the stored excerpt. Built from posts loaded with the body projected out.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostSummaryDTO {
+    
+    private String id;
+    private String title;
+    private String excerpt;
+    private UserProfileDTO author;
+    private List<String> tags;
+    private Integer upvotes;
+    private Integer downvotes;
+    private Integer score;
+    private Integer commentCount;
+    private Integer viewCount;
+    private Long uniqueViewers;
+    private Boolean pinned;
+    private Boolean locked;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastActivityAt;
+    private Double hotScore;
+    
+    // User's vote on this post (if authenticated)
+    private String userVote; // "UPVOTE", "DOWNVOTE", or null
+    
+    public static PostSummaryDTO fromPost(Post post) {
+        return PostSummaryDTO.builder()
+                .id(post.getId())
+                .title(post.getTitle())
+                .excerpt(post.getExcerpt())
+                .author(UserProfileDTO.fromUser(post.getAuthor(), false))
+                .tags(post.getTags())
+                .upvotes(post.getUpvotes())
+                .downvotes(post.getDownvotes())
+                .score(post.getScore())
+                .commentCount(post.getCommentCount())
+                .viewCount(post.getViewCount())
+                .uniqueViewers(post.getUniqueViewers())
+                .pinned(post.getPinned())
+                .locked(post.getLocked())
+                .createdAt(post.getCreatedAt())
+                .updatedAt(post.getUpdatedAt())
+                .lastActivityAt(post.getLastActivityAt())
+                .hotScore(post.getHotRank())
+                .build();
+    }
+    
+    public static PostSummaryDTO fromPostWithUserVote(Post post, String userVote) {
+        PostSummaryDTO dto = fromPost(post);
+        dto.setUserVote(userVote);
+        return dto;
+    }
+}
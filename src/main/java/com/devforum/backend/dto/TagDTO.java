@@ -0,0 +1,34 @@
+package com.devforum.backend.dto;
+
+import com.devforum.backend.entity.Tag;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagDTO {
+    
+    private String name;
+    private String description;
+    private String color;
+    private Integer postCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static TagDTO fromTag(Tag tag) {
+        return TagDTO.builder()
+                .name(tag.getName())
+                .description(tag.getDescription())
+                .color(tag.getColor())
+                .postCount(tag.getPostCount())
+                .createdAt(tag.getCreatedAt())
+                .updatedAt(tag.getUpdatedAt())
+                .build();
+    }
+}
@@ -40,6 +40,13 @@ public class Comment {
     @DBRef
     private Comment parentComment;
     
+    // Materialized path: ancestor ids root-first, then this comment's id, joined with "."
+    private String path;
+    
+    // Ids of every ancestor, root-first; a subtree is every comment listing the root here
+    @Builder.Default
+    private List<String> ancestors = new ArrayList<>();
+    
     @Builder.Default
     private Integer upvotes = 0;
     
@@ -71,6 +78,10 @@ public class Comment {
     }
     
     public String getTreePath() {
+        if (path != null) {
+            return path;
+        }
+        // Not yet backfilled: walk the parent references
         if (parentComment == null) {
             return id;
         }
@@ -7,6 +7,7 @@ import lombok.Builder;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 
@@ -23,6 +24,11 @@ import java.util.ArrayList;
 @Document(collection = "posts")
 public class Post {
     
+    // Length of the stored excerpt, in code points to match $substrCP in the backfill
+    public static final int EXCERPT_LENGTH = 280;
+    
+    public static final String COMPRESSED_BODY = "bodyZ";
+    
     @Id
     private String id;
     
@@ -36,6 +42,13 @@ public class Post {
     @TextIndexed(weight = 2) // Medium weight for body in text search
     private String body;
     
+    // Deflated body, stored instead of body when PostBodyCompressor compressed it; inflated into body on read
+    @Field(COMPRESSED_BODY)
+    private byte[] compressedBody;
+    
+    // Leading part of the body for list views, so feeds can leave the body out of the projection
+    private String excerpt;
+    
     @DBRef
     private User author;
     
@@ -54,6 +67,9 @@ public class Post {
     @Builder.Default
     private Integer viewCount = 0;
     
+    // Approximate distinct viewers, copied from the post's HyperLogLog sketch on each view flush
+    private Long uniqueViewers;
+    
     @Builder.Default
     private Boolean pinned = false;
     
@@ -70,15 +86,18 @@ public class Post {
     private LocalDateTime updatedAt;
     private LocalDateTime lastActivityAt;
     
+    // Persisted hot ranking, maintained by HotRank on every vote and comment count change
+    private Double hotRank;
+    
     // Computed fields
     public Integer getScore() {
         return upvotes - downvotes;
     }
     
-    public Double getHotScore() {
-        // Basic hot score algorithm (can be improved)
-        double score = getScore();
-        long ageInHours = java.time.Duration.between(createdAt, LocalDateTime.now()).toHours();
-        return score / Math.pow(ageInHours + 2, 1.8);
+    public static String excerptOf(String body) {
+        if (body == null || body.codePointCount(0, body.length()) <= EXCERPT_LENGTH) {
+            return body;
+        }
+        return body.substring(0, body.offsetByCodePoints(0, EXCERPT_LENGTH));
     }
 }
\ No newline at end of file
@@ -6,7 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -17,15 +18,17 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Document(collection = "votes")
-@CompoundIndex(def = "{'user': 1, 'targetType': 1, 'targetId': 1}", unique = true)
+@CompoundIndex(def = "{'userId': 1, 'targetType': 1, 'targetId': 1}", unique = true,
+               partialFilter = "{ 'userId': { $exists: true } }")
 public class Vote {
     
     @Id
     private String id;
     
-    @DBRef
+    // Stored as an ObjectId so index entries stay 12 bytes instead of a whole DBRef sub-document
     @Indexed
-    private User user;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String userId;
     
     @Indexed
     private String targetId; // ID of post or comment
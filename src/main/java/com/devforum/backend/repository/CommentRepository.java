@@ -56,9 +56,13 @@ public interface CommentRepository extends MongoRepository<Comment, String> {
     @Query("{ 'deleted': false, 'upvotes': { $lt: -3 } }")
     Page<Comment> findCommentsNeedingModeration(Pageable pageable);
     
-    // Find all descendants of a comment (for deleting comment trees)
-    @Query("{ 'parentComment': ?0 }")
-    List<Comment> findAllDescendants(Comment parentComment);
+    // Find all descendants of a comment at any depth (for deleting comment trees)
+    @Query("{ 'post': ?0, 'ancestors': ?1 }")
+    List<Comment> findAllDescendants(Post post, String commentId);
+    
+    // Count live descendants of a comment at any depth
+    @Query(value = "{ 'post': ?0, 'ancestors': ?1, 'deleted': false }", count = true)
+    long countDescendants(Post post, String commentId);
     
     // Search comments by content
     @Query("{ 'content': { $regex: ?0, $options: 'i' }, 'deleted': false }")
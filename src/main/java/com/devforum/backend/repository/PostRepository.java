@@ -4,64 +4,102 @@ import com.devforum.backend.entity.Post;
 import com.devforum.backend.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PostRepository extends MongoRepository<Post, String> {
     
+    // List queries leave out the body (derived queries take it from a value-less @Query); posts
+    // loaded through them are read-only and must not be saved
+    String SUMMARY_FIELDS = "{ 'body': 0, 'bodyZ': 0 }";
+    
     // Find posts by author
+    @Query(fields = SUMMARY_FIELDS)
     Page<Post> findByAuthorAndDeletedFalse(User author, Pageable pageable);
     
+    @Query(fields = SUMMARY_FIELDS)
+    Slice<Post> findSliceByAuthorAndDeletedFalse(User author, Pageable pageable);
+    
     // Find posts by tag
-    @Query("{ 'tags': { $in: [?0] }, 'deleted': false }")
+    @Query(value = "{ 'tags': { $in: [?0] }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findByTagAndDeletedFalse(String tag, Pageable pageable);
     
+    @Query(value = "{ 'tags': { $in: [?0] }, 'deleted': false }", fields = SUMMARY_FIELDS)
+    Slice<Post> findSliceByTagAndDeletedFalse(String tag, Pageable pageable);
+    
     // Find posts by multiple tags
-    @Query("{ 'tags': { $all: ?0 }, 'deleted': false }")
+    @Query(value = "{ 'tags': { $all: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findByAllTagsAndDeletedFalse(List<String> tags, Pageable pageable);
     
     // Find posts by any of the tags
-    @Query("{ 'tags': { $in: ?0 }, 'deleted': false }")
+    @Query(value = "{ 'tags': { $in: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findByAnyTagAndDeletedFalse(List<String> tags, Pageable pageable);
     
     // Full-text search
-    @Query("{ $text: { $search: ?0 }, 'deleted': false }")
+    @Query(value = "{ $text: { $search: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findByTextSearch(String searchText, Pageable pageable);
     
     // Find recent posts
-    @Query("{ 'createdAt': { $gte: ?0 }, 'deleted': false }")
+    @Query(value = "{ 'createdAt': { $gte: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findRecentPosts(LocalDateTime since, Pageable pageable);
     
     // Find trending posts (high activity recently)
-    @Query("{ 'lastActivityAt': { $gte: ?0 }, 'deleted': false }")
+    @Query(value = "{ 'lastActivityAt': { $gte: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
     Page<Post> findTrendingPosts(LocalDateTime since, Pageable pageable);
     
+    @Query(value = "{ 'lastActivityAt': { $gte: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
+    Slice<Post> findTrendingPostsSlice(LocalDateTime since, Pageable pageable);
+    
+    // Find trending posts within a tag
+    @Query(value = "{ 'tags': { $in: [?0] }, 'lastActivityAt': { $gte: ?1 }, 'deleted': false }",
+           fields = SUMMARY_FIELDS)
+    Page<Post> findTrendingPostsByTag(String tag, LocalDateTime since, Pageable pageable);
+    
+    @Query(value = "{ 'tags': { $in: [?0] }, 'lastActivityAt': { $gte: ?1 }, 'deleted': false }",
+           fields = SUMMARY_FIELDS)
+    Slice<Post> findTrendingPostsByTagSlice(String tag, LocalDateTime since, Pageable pageable);
+    
     // Find hot posts (high score and recent)
-    @Query("{ 'createdAt': { $gte: ?0 }, 'upvotes': { $gte: ?1 }, 'deleted': false }")
+    @Query(value = "{ 'createdAt': { $gte: ?0 }, 'upvotes': { $gte: ?1 }, 'deleted': false }",
+           fields = SUMMARY_FIELDS)
     Page<Post> findHotPosts(LocalDateTime since, Integer minUpvotes, Pageable pageable);
     
     // Find top posts by score
-    @Query(value = "{ 'deleted': false }", sort = "{ 'upvotes': -1, 'downvotes': 1 }")
+    @Query(value = "{ 'deleted': false }", sort = "{ 'upvotes': -1, 'downvotes': 1 }",
+           fields = SUMMARY_FIELDS)
     Page<Post> findTopPosts(Pageable pageable);
     
     // Find pinned posts
-    @Query(value = "{ 'pinned': true, 'deleted': false }", sort = "{ 'createdAt': -1 }")
+    @Query(value = "{ 'pinned': true, 'deleted': false }", sort = "{ 'createdAt': -1 }",
+           fields = SUMMARY_FIELDS)
     List<Post> findPinnedPosts();
     
     // Find posts without deleted ones
+    @Query(fields = SUMMARY_FIELDS)
     Page<Post> findByDeletedFalse(Pageable pageable);
     
+    // Same as above without the count query; hasNext comes from fetching one extra row
+    @Query(fields = SUMMARY_FIELDS)
+    Slice<Post> findSliceByDeletedFalse(Pageable pageable);
+    
+    // Summaries for ids served from the in-memory ranking boards
+    @Query(value = "{ '_id': { $in: ?0 }, 'deleted': false }", fields = SUMMARY_FIELDS)
+    List<Post> findSummariesByIdIn(Collection<String> ids);
+    
     // Count posts by author
     long countByAuthorAndDeletedFalse(User author);
     
     // Find posts that need moderation (reported or flagged)
-    @Query("{ 'deleted': false, $or: [ { 'upvotes': { $lt: -5 } }, { 'locked': true } ] }")
+    @Query(value = "{ 'deleted': false, $or: [ { 'upvotes': { $lt: -5 } }, { 'locked': true } ] }",
+           fields = SUMMARY_FIELDS)
     Page<Post> findPostsNeedingModeration(Pageable pageable);
     
     // Get post with incremented view count
@@ -69,7 +107,7 @@ public interface PostRepository extends MongoRepository<Post, String> {
     Optional<Post> findByIdAndDeletedFalse(String id);
     
     // Advanced search with multiple criteria
-    @Query("{ " +
+    @Query(value = "{ " +
            "$and: [ " +
            "{ 'deleted': false }, " +
            "{ $or: [ " +
@@ -77,6 +115,19 @@ public interface PostRepository extends MongoRepository<Post, String> {
            "  { 'body': { $regex: ?0, $options: 'i' } }, " +
            "  { 'tags': { $in: [?0] } } " +
            "] } " +
-           "] }")
+           "] }",
+           fields = SUMMARY_FIELDS)
     Page<Post> advancedSearch(String searchTerm, Pageable pageable);
+    
+    @Query(value = "{ " +
+           "$and: [ " +
+           "{ 'deleted': false }, " +
+           "{ $or: [ " +
+           "  { 'title': { $regex: ?0, $options: 'i' } }, " +
+           "  { 'body': { $regex: ?0, $options: 'i' } }, " +
+           "  { 'tags': { $in: [?0] } } " +
+           "] } " +
+           "] }",
+           fields = SUMMARY_FIELDS)
+    Slice<Post> advancedSearchSlice(String searchTerm, Pageable pageable);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.devforum.backend.repository;
 import com.devforum.backend.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -27,6 +28,8 @@ public interface UserRepository extends MongoRepository<User, String> {
     // Find users by role
     Page<User> findByRole(User.Role role, Pageable pageable);
     
+    Slice<User> findSliceByRole(User.Role role, Pageable pageable);
+    
     // Find users by reputation range
     @Query("{ 'reputation': { $gte: ?0, $lte: ?1 } }")
     Page<User> findByReputationBetween(Integer minReputation, Integer maxReputation, Pageable pageable);
@@ -42,10 +45,19 @@ public interface UserRepository extends MongoRepository<User, String> {
            "{ 'lastName': { $regex: ?0, $options: 'i' } } ] }")
     Page<User> searchUsers(String searchTerm, Pageable pageable);
     
+    @Query("{ $or: [ " +
+           "{ 'username': { $regex: ?0, $options: 'i' } }, " +
+           "{ 'firstName': { $regex: ?0, $options: 'i' } }, " +
+           "{ 'lastName': { $regex: ?0, $options: 'i' } } ] }")
+    Slice<User> searchUsersSlice(String searchTerm, Pageable pageable);
+    
     // Count users by role
     long countByRole(User.Role role);
     
     // Find top users by reputation
     @Query(value = "{}", sort = "{ 'reputation': -1 }")
     Page<User> findTopUsersByReputation(Pageable pageable);
+    
+    @Query(value = "{}", sort = "{ 'reputation': -1 }")
+    Slice<User> findTopUsersByReputationSlice(Pageable pageable);
 }
\ No newline at end of file
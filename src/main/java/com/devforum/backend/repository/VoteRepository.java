@@ -1,7 +1,6 @@
 package com.devforum.backend.repository;
 
 import com.devforum.backend.entity.Vote;
-import com.devforum.backend.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -13,10 +12,10 @@ import java.util.Optional;
 public interface VoteRepository extends MongoRepository<Vote, String> {
     
     // Find vote by user and target
-    Optional<Vote> findByUserAndTargetTypeAndTargetId(User user, Vote.TargetType targetType, String targetId);
+    Optional<Vote> findByUserIdAndTargetTypeAndTargetId(String userId, Vote.TargetType targetType, String targetId);
     
     // Check if user has voted on target
-    boolean existsByUserAndTargetTypeAndTargetId(User user, Vote.TargetType targetType, String targetId);
+    boolean existsByUserIdAndTargetTypeAndTargetId(String userId, Vote.TargetType targetType, String targetId);
     
     // Get all votes for a target
     List<Vote> findByTargetTypeAndTargetId(Vote.TargetType targetType, String targetId);
@@ -25,13 +24,13 @@ public interface VoteRepository extends MongoRepository<Vote, String> {
     long countByTargetTypeAndTargetIdAndVoteType(Vote.TargetType targetType, String targetId, Vote.VoteType voteType);
     
     // Get user's votes
-    List<Vote> findByUser(User user);
+    List<Vote> findByUserId(String userId);
     
     // Get user's votes by target type
-    List<Vote> findByUserAndTargetType(User user, Vote.TargetType targetType);
+    List<Vote> findByUserIdAndTargetType(String userId, Vote.TargetType targetType);
     
     // Get user's votes by vote type
-    List<Vote> findByUserAndVoteType(User user, Vote.VoteType voteType);
+    List<Vote> findByUserIdAndVoteType(String userId, Vote.VoteType voteType);
     
     // Count upvotes for target
     @Query("{ 'targetType': ?0, 'targetId': ?1, 'voteType': 'UPVOTE' }")
@@ -49,5 +48,5 @@ public interface VoteRepository extends MongoRepository<Vote, String> {
     void deleteByTargetTypeAndTargetId(Vote.TargetType targetType, String targetId);
     
     // Delete all votes by user
-    void deleteByUser(User user);
+    void deleteByUserId(String userId);
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final AutocompleteIndex autocompleteIndex;
     
     @Transactional
     public JwtResponse register(RegisterRequest registerRequest) {
@@ -57,6 +58,7 @@ public class AuthService {
                 .build();
         
         User savedUser = userRepository.save(user);
+        autocompleteIndex.onUserSaved(savedUser);
         log.info("New user registered: {}", savedUser.getUsername());
         
         // Generate JWT tokens
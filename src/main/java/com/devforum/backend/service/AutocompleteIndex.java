@@ -0,0 +1,315 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Tag;
+import com.devforum.backend.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index behind autocomplete, replacing unanchored case-insensitive regex scans.
+ * Tag names are weighted by post count and usernames by reputation; keys are lower-cased with
+ * accents stripped. Tag, registration and reputation writes on this instance patch the tries in
+ * place, and a periodic rebuild picks up writes made elsewhere.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AutocompleteIndex {
+
+    private static final String TAGS = "tags";
+    private static final String USERS = "users";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.search.autocomplete.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.autocomplete.max-results:10}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private PrefixTrie tags;
+    private PrefixTrie users;
+    private Map<String, String> usernames;
+
+    // Keys written while a rebuild is loading, re-read once the new tries are swapped in
+    private Set<String> touchedTags;
+    private Set<String> touchedUsers;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private volatile LocalDateTime lastRebuildAt;
+    private volatile long lastRebuildDurationMs;
+
+    /**
+     * Returns up to {@code limit} tags starting with {@code prefix}, most used first. Empty
+     * until the index has been built, in which case the caller should query Mongo instead.
+     */
+    public Optional<List<PrefixTrie.Entry>> completeTags(String prefix, int limit) {
+        return complete(prefix, limit, true);
+    }
+
+    public Optional<List<PrefixTrie.Entry>> completeUsers(String prefix, int limit) {
+        return complete(prefix, limit, false);
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void onTagCountsChanged(Map<String, Integer> deltas) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (tags != null) {
+                deltas.forEach((name, delta) -> tags.adjust(normalize(name), name, delta));
+            }
+            if (touchedTags != null) {
+                touchedTags.addAll(deltas.keySet());
+            }
+            events.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onUserSaved(User user) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (users != null) {
+                putUser(user);
+            }
+            if (touchedUsers != null) {
+                touchedUsers.add(user.getId());
+            }
+            events.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onReputationChanged(Map<String, Integer> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (users != null) {
+                changes.forEach((userId, change) -> {
+                    String username = usernames.get(userId);
+                    if (username != null) {
+                        users.adjust(normalize(username), username, change);
+                    }
+                });
+            }
+            if (touchedUsers != null) {
+                touchedUsers.addAll(changes.keySet());
+            }
+            events.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.autocomplete.rebuild-interval-ms:1800000}",
+               initialDelayString = "${app.search.autocomplete.rebuild-interval-ms:1800000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            touchedTags = new HashSet<>();
+            touchedUsers = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        PrefixTrie loadedTags = new PrefixTrie(maxResults);
+        PrefixTrie loadedUsers = new PrefixTrie(maxResults);
+        Map<String, String> loadedUsernames = new HashMap<>();
+        try {
+            Query tagQuery = new Query();
+            tagQuery.fields().include("name", "postCount");
+            try (Stream<Document> rows = mongoTemplate.stream(tagQuery, Document.class, TAGS)) {
+                rows.forEach(tag -> {
+                    String name = tag.getString("name");
+                    loadedTags.load(normalize(name), name, weight(tag.get("postCount")));
+                });
+            }
+
+            Query userQuery = Query.query(Criteria.where("enabled").ne(false));
+            userQuery.fields().include("_id", "username", "reputation");
+            try (Stream<Document> rows = mongoTemplate.stream(userQuery, Document.class, USERS)) {
+                rows.forEach(user -> {
+                    String username = user.getString("username");
+                    loadedUsers.load(normalize(username), username, weight(user.get("reputation")));
+                    loadedUsernames.put(user.get("_id").toString(), username);
+                });
+            }
+        } catch (RuntimeException e) {
+            log.error("Autocomplete index rebuild failed: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                touchedTags = null;
+                touchedUsers = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        loadedTags.rank();
+        loadedUsers.rank();
+
+        Set<String> tagsToReplay;
+        Set<String> usersToReplay;
+        lock.writeLock().lock();
+        try {
+            tags = loadedTags;
+            users = loadedUsers;
+            usernames = loadedUsernames;
+            tagsToReplay = touchedTags;
+            usersToReplay = touchedUsers;
+            touchedTags = null;
+            touchedUsers = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        replay(tagsToReplay, usersToReplay);
+
+        lastRebuildAt = LocalDateTime.now();
+        lastRebuildDurationMs = System.currentTimeMillis() - started;
+        log.info("Rebuilt autocomplete index: {} tags, {} users in {} ms",
+                loadedTags.size(), loadedUsers.size(), lastRebuildDurationMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxResults", maxResults);
+        lock.readLock().lock();
+        try {
+            if (tags != null) {
+                stats.put("tags", tags.size());
+                stats.put("tagNodes", tags.nodes());
+                stats.put("users", users.size());
+                stats.put("userNodes", users.nodes());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("queries", queries.sum());
+        stats.put("events", events.sum());
+        stats.put("lastRebuildDurationMs", lastRebuildDurationMs);
+        stats.put("lastRebuildAt", lastRebuildAt);
+        return stats;
+    }
+
+    // Lower-cased with accents stripped, so a prefix matches whatever case or accents it was typed with
+    public static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private Optional<List<PrefixTrie.Entry>> complete(String prefix, int limit, boolean tagTrie) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            PrefixTrie trie = tagTrie ? tags : users;
+            if (trie == null) {
+                return Optional.empty();
+            }
+            queries.increment();
+            return Optional.of(trie.complete(normalize(prefix), Math.min(limit, maxResults)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void putUser(User user) {
+        String previous = usernames.get(user.getId());
+        if (previous != null) {
+            users.remove(normalize(previous));
+        }
+        if (Boolean.FALSE.equals(user.getEnabled())) {
+            usernames.remove(user.getId());
+            return;
+        }
+        users.put(normalize(user.getUsername()), user.getUsername(), weight(user.getReputation()));
+        usernames.put(user.getId(), user.getUsername());
+    }
+
+    private void replay(Set<String> tagNames, Set<String> userIds) {
+        try {
+            if (!tagNames.isEmpty()) {
+                List<Tag> rows = mongoTemplate.find(Query.query(Criteria.where("name").in(tagNames)), Tag.class);
+                lock.writeLock().lock();
+                try {
+                    rows.forEach(tag -> tags.put(normalize(tag.getName()), tag.getName(), weight(tag.getPostCount())));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            if (!userIds.isEmpty()) {
+                // Typed query, so the string ids are converted to the stored ObjectIds
+                List<User> rows = mongoTemplate.find(Query.query(Criteria.where("_id").in(userIds)), User.class);
+                lock.writeLock().lock();
+                try {
+                    rows.forEach(this::putUser);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            // The next rebuild picks these up
+            log.warn("Autocomplete replay after rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private static long weight(Object value) {
+        return value instanceof Number number ? Math.max(0, number.longValue()) : 0;
+    }
+}
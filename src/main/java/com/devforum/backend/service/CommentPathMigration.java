@@ -0,0 +1,186 @@
+package com.devforum.backend.service;
+
+import com.mongodb.DBRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Backfills {@code path} and {@code ancestors} on comments created before they were stored.
+ * Comments are processed one nesting level at a time, top level first, so every parent already
+ * has its path when its replies are reached; within a level they go in _id order in bounded
+ * batches. Only comments still missing a path are selected, so an interrupted run simply picks
+ * up the remainder on its next start.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentPathMigration {
+
+    private static final String COMMENTS = "comments";
+    private static final int MAX_LEVEL = 10;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.migrations.comment-path.enabled:true}")
+    private boolean runOnStartup;
+
+    @Value("${app.migrations.comment-path.batch-size:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder orphaned = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile Integer currentLevel;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (runOnStartup && mongoTemplate.exists(unmigratedQuery(), COMMENTS)) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the backfill in the background; returns false if a run is already in progress.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "comment-path-migration");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("remainingComments", mongoTemplate.count(unmigratedQuery(), COMMENTS));
+        status.put("migrated", migrated.sum());
+        status.put("orphaned", orphaned.sum());
+        status.put("batches", batches.sum());
+        status.put("currentLevel", currentLevel);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void run() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        try {
+            log.info("Starting comment path backfill, {} comments",
+                    mongoTemplate.count(unmigratedQuery(), COMMENTS));
+            for (int level = 0; level <= MAX_LEVEL; level++) {
+                currentLevel = level;
+                ObjectId lastId = null;
+                List<Document> batch;
+                while (!(batch = nextBatch(level, lastId)).isEmpty()) {
+                    migrateBatch(batch);
+                    lastId = batch.get(batch.size() - 1).getObjectId("_id");
+                    batches.increment();
+                }
+            }
+            currentLevel = null;
+            finishedAt = LocalDateTime.now();
+            log.info("Comment path backfill finished: {} migrated, {} without a reachable parent",
+                    migrated.sum(), orphaned.sum());
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Comment path backfill stopped at level {}: {}", currentLevel, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<Document> nextBatch(int level, ObjectId lastId) {
+        Query query = unmigratedQuery();
+        query.addCriteria(level == 0
+                ? new Criteria().orOperator(Criteria.where("level").is(0), Criteria.where("level").exists(false))
+                : Criteria.where("level").is(level));
+        if (lastId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("_id").include("parentComment");
+        return mongoTemplate.find(query, Document.class, COMMENTS);
+    }
+
+    private void migrateBatch(List<Document> comments) {
+        Set<Object> parentIds = new HashSet<>();
+        for (Document comment : comments) {
+            DBRef parent = comment.get("parentComment", DBRef.class);
+            if (parent != null) {
+                parentIds.add(parent.getId());
+            }
+        }
+
+        Map<String, String> parentPaths = new HashMap<>();
+        if (!parentIds.isEmpty()) {
+            Query parents = Query.query(Criteria.where("_id").in(parentIds).and("path").exists(true));
+            parents.fields().include("_id").include("path");
+            for (Document parent : mongoTemplate.find(parents, Document.class, COMMENTS)) {
+                parentPaths.put(parent.get("_id").toString(), parent.getString("path"));
+            }
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COMMENTS);
+        int pending = 0;
+        for (Document comment : comments) {
+            String id = comment.get("_id").toString();
+            DBRef parent = comment.get("parentComment", DBRef.class);
+            String path = id;
+            List<String> ancestors = new ArrayList<>();
+            if (parent != null) {
+                String parentPath = parentPaths.get(parent.getId().toString());
+                if (parentPath == null) {
+                    // Parent missing or at an inconsistent level; left for a later run
+                    orphaned.increment();
+                    continue;
+                }
+                ancestors.addAll(Arrays.asList(parentPath.split("\\.")));
+                path = parentPath + "." + id;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(comment.get("_id")).and("path").exists(false)),
+                    new Update().set("path", path).set("ancestors", ancestors));
+            pending++;
+        }
+        if (pending > 0) {
+            migrated.add(bulk.execute().getModifiedCount());
+        }
+    }
+
+    private Query unmigratedQuery() {
+        return new Query(Criteria.where("path").exists(false));
+    }
+}
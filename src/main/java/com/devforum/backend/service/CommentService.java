@@ -2,6 +2,7 @@ package com.devforum.backend.service;
 
 import com.devforum.backend.dto.CommentDTO;
 import com.devforum.backend.dto.CreateCommentRequest;
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.UpdateCommentRequest;
 import com.devforum.backend.entity.Comment;
 import com.devforum.backend.entity.Post;
@@ -9,17 +10,41 @@ import com.devforum.backend.entity.User;
 import com.devforum.backend.entity.Vote;
 import com.devforum.backend.repository.CommentRepository;
 import com.devforum.backend.repository.PostRepository;
+import com.mongodb.DBRef;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,6 +56,45 @@ public class CommentService {
     private final PostRepository postRepository;
     private final UserService userService;
     private final VoteService voteService;
+    private final MongoTemplate mongoTemplate;
+    private final FeedRanking feedRanking;
+    private final PostCache postCache;
+    private final KeysetPager keysetPager;
+    private final CommentTreeCache commentTreeCache;
+    
+    // What a reply node shows; the references stay DBRefs and are resolved by id
+    private static final String[] REPLY_FIELDS = {"_id", "content", "author", "post", "upvotes", "downvotes",
+            "level", "edited", "createdAt", "updatedAt"};
+    
+    @Value("${app.comments.replies-per-node:10}")
+    private int defaultRepliesPerNode;
+    
+    @Value("${app.comments.tree.max-replies-per-node:50}")
+    private int maxRepliesPerNode;
+    
+    @Value("${app.comments.tree.max-nodes:1000}")
+    private int maxTreeNodes;
+    
+    // $topN and the $count accumulator arrived in MongoDB 5.2; until the server is checked the
+    // reply query takes the sort-and-slice path every version runs
+    private volatile boolean topNSupported;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkServerVersion() {
+        try {
+            Document buildInfo = mongoTemplate.executeCommand(new Document("buildInfo", 1));
+            List<Integer> version = buildInfo.getList("versionArray", Integer.class, List.of());
+            int major = version.isEmpty() ? 0 : version.get(0);
+            int minor = version.size() > 1 ? version.get(1) : 0;
+            topNSupported = major > 5 || (major == 5 && minor >= 2);
+            if (!topNSupported) {
+                log.warn("MongoDB {} has no $topN; replies per node are capped by sorting, pushing and slicing instead",
+                        buildInfo.getString("version"));
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the MongoDB version; capping replies per node without $topN", e);
+        }
+    }
     
     @Transactional
     public CommentDTO createComment(CreateCommentRequest request) {
@@ -57,11 +121,24 @@ public class CommentService {
             }
         }
         
+        // The id is assigned up front so the comment's own path is written with it
+        String commentId = new ObjectId().toHexString();
+        List<String> ancestors = new ArrayList<>();
+        String path = commentId;
+        if (parentComment != null) {
+            String parentPath = parentComment.getTreePath();
+            ancestors.addAll(Arrays.asList(parentPath.split("\\.")));
+            path = parentPath + "." + commentId;
+        }
+        
         Comment comment = Comment.builder()
+                .id(commentId)
                 .content(request.getContent())
                 .author(currentUser)
                 .post(post)
                 .parentComment(parentComment)
+                .path(path)
+                .ancestors(ancestors)
                 .upvotes(0)
                 .downvotes(0)
                 .level(level)
@@ -71,26 +148,90 @@ public class CommentService {
                 .build();
         
         Comment savedComment = commentRepository.save(comment);
+        commentTreeCache.onCommentCreated(savedComment);
         
-        // Update post comment count and last activity
-        post.setCommentCount(post.getCommentCount() + 1);
-        post.setLastActivityAt(LocalDateTime.now());
-        postRepository.save(post);
+        // Update post comment count and last activity without rewriting the vote counters
+        incrementCommentCount(post.getId(), 1, true);
         
         log.info("Comment created on post {} by {}", post.getTitle(), currentUser.getUsername());
         
         return CommentDTO.fromComment(savedComment);
     }
     
-    public List<CommentDTO> getCommentsForPost(String postId, int maxDepth) {
+    /**
+     * One page of a post's comment tree, read a level at a time: a keyset page of top-level
+     * comments, then for each further level at most {@code repliesPerNode} replies per comment
+     * from one grouped aggregation. Each node says how many direct replies were left out and
+     * carries a cursor for {@link #getReplies}, and the whole page is capped at max-nodes
+     * comments, so memory and payload stay bounded however large the thread is.
+     */
+    public CursorPage<CommentDTO> getCommentTree(String postId, CommentTree.Order order, int maxDepth,
+                                                 String cursor, int size, int repliesPerNode) {
         Post post = postRepository.findByIdAndDeletedFalse(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
-        // Get all comments for the post
-        List<Comment> allComments = commentRepository.findByPostAndDeletedFalseOrderByCreatedAt(post);
+        int perNode = Math.max(0, Math.min(repliesPerNode, maxRepliesPerNode));
+        if (cursor == null || cursor.isBlank()) {
+            // First pages come from the cached thread; only the reader's votes are looked up
+            Optional<CursorPage<CommentDTO>> cached = commentTreeCache.firstPage(
+                    post.getId(), order, maxDepth, Math.min(size, maxTreeNodes), perNode, maxTreeNodes);
+            if (cached.isPresent()) {
+                return withUserVotes(cached.get());
+            }
+        }
         
-        // Build comment tree
-        return buildCommentTree(allComments, null, maxDepth, 0);
+        Criteria filter = Criteria.where("post").is(post).and("parentComment").is(null).and("deleted").is(false);
+        KeysetPager.Slice<Comment> top = keysetPager.find(
+                filter, order.sort(), cursor, Math.min(size, maxTreeNodes), Comment.class);
+        
+        List<Comment> loaded = new ArrayList<>(top.content());
+        Map<String, ReplyGroup> groups = new HashMap<>();
+        List<Comment> frontier = top.content();
+        for (int depth = 1; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+            // The deepest level shown only needs its reply counts
+            int budget = maxTreeNodes - loaded.size();
+            int limit = depth < maxDepth ? Math.min(perNode, budget) : 0;
+            Map<String, ReplyGroup> level = repliesOf(frontier, order, limit);
+            
+            List<Comment> next = new ArrayList<>();
+            for (Comment parent : frontier) {
+                ReplyGroup group = level.get(parent.getId());
+                int taken = Math.min(group.replies().size(), budget - next.size());
+                if (taken < group.replies().size()) {
+                    group = new ReplyGroup(group.replies().subList(0, taken), group.total());
+                }
+                groups.put(parent.getId(), group);
+                next.addAll(group.replies());
+            }
+            loaded.addAll(next);
+            frontier = next;
+        }
+        
+        Map<String, String> userVotes = voteService.getUserVotes(
+            loaded.stream().map(Comment::getId).toList(), Vote.TargetType.COMMENT);
+        List<CommentDTO> tree = CommentTree.build(loaded, order, maxDepth, userVotes);
+        markCappedReplies(tree, groups, order.sort());
+        return CursorPage.of(tree, top.nextCursor());
+    }
+    
+    /**
+     * Direct replies of one comment, a keyset page at a time. Each reply carries its own reply
+     * count so deeper levels can be loaded the same way.
+     */
+    public CursorPage<CommentDTO> getReplies(String commentId, CommentTree.Order order, String cursor, int limit) {
+        Comment parent = commentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found: " + commentId));
+        
+        Criteria filter = Criteria.where("parentComment").is(commentRef(parent.getId())).and("deleted").is(false);
+        KeysetPager.Slice<Comment> slice = keysetPager.find(
+                filter, order.sort(), cursor, Math.min(limit, maxTreeNodes), Comment.class);
+        
+        Map<String, ReplyGroup> groups = repliesOf(slice.content(), order, 0);
+        Map<String, String> userVotes = voteService.getUserVotes(
+            slice.content().stream().map(Comment::getId).toList(), Vote.TargetType.COMMENT);
+        List<CommentDTO> replies = toCommentDTOs(slice.content(), userVotes);
+        markCappedReplies(replies, groups, order.sort());
+        return CursorPage.of(replies, slice.nextCursor());
     }
     
     public Page<CommentDTO> getTopLevelComments(String postId, Pageable pageable) {
@@ -98,39 +239,223 @@ public class CommentService {
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
         Page<Comment> comments = commentRepository.findTopLevelCommentsByPost(post, pageable);
+        List<CommentDTO> content = withImmediateReplies(comments.getContent());
+        return new PageImpl<>(content, pageable, comments.getTotalElements());
+    }
+    
+    public CursorPage<CommentDTO> getTopLevelCommentsByCursor(String postId, String sortBy, String cursor, int size) {
+        Post post = postRepository.findByIdAndDeletedFalse(postId)
+                .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
-        return comments.map(comment -> {
-            String userVote = voteService.getUserVote(comment.getId(), Vote.TargetType.COMMENT);
-            
-            // Get immediate replies
-            List<Comment> replies = commentRepository.findRepliesByParentComment(comment);
-            List<CommentDTO> replyDTOs = replies.stream()
-                    .map(reply -> {
-                        String replyUserVote = voteService.getUserVote(reply.getId(), Vote.TargetType.COMMENT);
-                        return CommentDTO.fromCommentWithUserVote(reply, replyUserVote);
-                    })
-                    .collect(Collectors.toList());
-            
-            return CommentDTO.fromCommentWithReplies(comment, userVote, replyDTOs);
-        });
+        Sort sort;
+        switch (sortBy != null ? sortBy.toLowerCase() : "score") {
+            case "newest":
+                sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id"));
+                break;
+            case "oldest":
+                sort = Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id"));
+                break;
+            case "score":
+            default:
+                // Same order as the page-number endpoint
+                sort = Sort.by(Sort.Order.desc("upvotes"), Sort.Order.asc("createdAt"), Sort.Order.asc("_id"));
+                break;
+        }
+        
+        Criteria filter = Criteria.where("post").is(post).and("parentComment").is(null).and("deleted").is(false);
+        KeysetPager.Slice<Comment> slice = keysetPager.find(filter, sort, cursor, size, Comment.class);
+        return CursorPage.of(withImmediateReplies(slice.content()), slice.nextCursor());
+    }
+    
+    // Attaches up to repliesPerNode direct replies to each comment, with the current user's votes
+    // on all of them; two queries for the whole page however many comments and replies it holds
+    private List<CommentDTO> withImmediateReplies(List<Comment> comments) {
+        Map<String, ReplyGroup> groups = repliesOf(comments, CommentTree.Order.SCORE, defaultRepliesPerNode);
+        List<String> commentIds = new ArrayList<>();
+        for (Comment comment : comments) {
+            commentIds.add(comment.getId());
+            groups.get(comment.getId()).replies().forEach(reply -> commentIds.add(reply.getId()));
+        }
+        
+        Map<String, String> userVotes = voteService.getUserVotes(commentIds, Vote.TargetType.COMMENT);
+        
+        List<CommentDTO> nodes = comments.stream()
+                .map(comment -> CommentDTO.fromCommentWithReplies(
+                        comment, userVotes.get(comment.getId()),
+                        toCommentDTOs(groups.get(comment.getId()).replies(), userVotes)))
+                .collect(Collectors.toList());
+        markCappedReplies(nodes, groups, CommentTree.Order.SCORE.sort());
+        return nodes;
+    }
+    
+    // Sets the current user's votes on every node of an assembled tree with one lookup
+    private CursorPage<CommentDTO> withUserVotes(CursorPage<CommentDTO> tree) {
+        List<CommentDTO> nodes = new ArrayList<>();
+        collectNodes(tree.getContent(), nodes);
+        Map<String, String> userVotes = voteService.getUserVotes(
+            nodes.stream().map(CommentDTO::getId).toList(), Vote.TargetType.COMMENT);
+        nodes.forEach(node -> node.setUserVote(userVotes.get(node.getId())));
+        return tree;
+    }
+    
+    private static void collectNodes(List<CommentDTO> level, List<CommentDTO> nodes) {
+        for (CommentDTO node : level) {
+            nodes.add(node);
+            collectNodes(node.getReplies(), nodes);
+        }
+    }
+    
+    // The first replies of a parent in the requested order, and how many it has in total
+    private record ReplyGroup(List<Comment> replies, long total) {
+    }
+    
+    /**
+     * Up to {@code limit} direct replies of each of the given comments plus each one's reply
+     * count, in one aggregation grouped on the parent reference. Every parent gets an entry;
+     * a limit of zero only counts. On MongoDB 5.2 or later the first replies are kept with
+     * {@code $topN} while grouping; older servers sort, push every reply and slice. Replies are projected to the fields a node shows and their
+     * authors resolved with one lookup, so no @DBRef is followed per reply.
+     */
+    private Map<String, ReplyGroup> repliesOf(List<Comment> parents, CommentTree.Order order, int limit) {
+        Map<String, ReplyGroup> groups = new HashMap<>();
+        if (parents.isEmpty()) {
+            return groups;
+        }
+        parents.forEach(parent -> groups.put(parent.getId(), new ReplyGroup(List.of(), 0)));
+        
+        List<DBRef> parentRefs = parents.stream().map(parent -> commentRef(parent.getId())).toList();
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where("parentComment").in(parentRefs).and("deleted").is(false)));
+        if (limit > 0 && topNSupported) {
+            // $topN keeps only the first replies of each parent while grouping instead of pushing
+            // every reply and slicing afterwards; written out because the builder wraps output in an array
+            Document sortBy = new Document();
+            order.sort().forEach(field -> sortBy.append(field.getProperty(), field.isAscending() ? 1 : -1));
+            Document output = new Document();
+            for (String field : REPLY_FIELDS) {
+                output.append(field, "$" + field);
+            }
+            Document group = new Document("_id", "$parentComment")
+                    .append("total", new Document("$count", new Document()))
+                    .append("replies", new Document("$topN",
+                            new Document("n", limit).append("sortBy", sortBy).append("output", output)));
+            stages.add(context -> new Document("$group", group));
+        } else if (limit > 0) {
+            stages.add(Aggregation.sort(order.sort()));
+            stages.add(Aggregation.project(REPLY_FIELDS).andInclude("parentComment"));
+            stages.add(Aggregation.group("parentComment").count().as("total").push(Aggregation.ROOT).as("replies"));
+            stages.add(Aggregation.project("total").and("replies").slice(limit).as("replies"));
+        } else {
+            stages.add(Aggregation.group("parentComment").count().as("total"));
+        }
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<Document> rows = mongoTemplate.aggregate(
+                aggregation, mongoTemplate.getCollectionName(Comment.class), Document.class).getMappedResults();
+        
+        // One lookup for the authors of every reply on the page
+        Set<Object> authorIds = new HashSet<>();
+        for (Document row : rows) {
+            for (Document reply : row.getList("replies", Document.class, List.of())) {
+                if (reply.get("author") instanceof DBRef authorRef) {
+                    authorIds.add(authorRef.getId());
+                }
+            }
+        }
+        Map<String, User> authors = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (User user : mongoTemplate.find(Query.query(Criteria.where("_id").in(authorIds)), User.class)) {
+                authors.put(user.getId(), user);
+            }
+        }
+        
+        for (Document row : rows) {
+            Object parent = row.get("_id");
+            String parentId = parent instanceof DBRef ref ? ref.getId().toString() : ((Document) parent).get("$id").toString();
+            List<Comment> replies = new ArrayList<>();
+            for (Document reply : row.getList("replies", Document.class, List.of())) {
+                replies.add(toReply(reply, parentId, authors));
+            }
+            groups.put(parentId, new ReplyGroup(replies, row.get("total", Number.class).longValue()));
+        }
+        return groups;
+    }
+    
+    // A reply built from its projected document; post and parent carry only their ids
+    private static Comment toReply(Document reply, String parentId, Map<String, User> authors) {
+        String authorId = reply.get("author") instanceof DBRef authorRef ? authorRef.getId().toString() : null;
+        String postId = reply.get("post") instanceof DBRef postRef ? postRef.getId().toString() : null;
+        return Comment.builder()
+                .id(reply.get("_id").toString())
+                .content(reply.getString("content"))
+                .author(authorId != null ? authors.get(authorId) : null)
+                .post(Post.builder().id(postId).build())
+                .parentComment(Comment.builder().id(parentId).build())
+                .upvotes(reply.getInteger("upvotes", 0))
+                .downvotes(reply.getInteger("downvotes", 0))
+                .level(reply.getInteger("level", 0))
+                .deleted(false)
+                .edited(Boolean.TRUE.equals(reply.getBoolean("edited")))
+                .createdAt(toLocalDateTime(reply.getDate("createdAt")))
+                .updatedAt(toLocalDateTime(reply.getDate("updatedAt")))
+                .build();
+    }
+    
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+    
+    // Records on each node with a known reply count how many replies were left out and where to continue
+    private void markCappedReplies(List<CommentDTO> nodes, Map<String, ReplyGroup> groups, Sort sort) {
+        for (CommentDTO node : nodes) {
+            ReplyGroup group = groups.get(node.getId());
+            if (group == null) {
+                continue;
+            }
+            long remaining = group.total() - group.replies().size();
+            node.setRemainingReplies(remaining);
+            if (remaining > 0 && !group.replies().isEmpty()) {
+                node.setRepliesCursor(keysetPager.cursorAfter(sort, group.replies().get(group.replies().size() - 1)));
+            }
+            markCappedReplies(node.getReplies(), groups, sort);
+        }
+    }
+    
+    private DBRef commentRef(String commentId) {
+        return new DBRef(mongoTemplate.getCollectionName(Comment.class), new ObjectId(commentId));
     }
     
     public CommentDTO getComment(String commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found: " + commentId));
+        return withImmediateReplies(List.of(comment)).get(0);
+    }
+    
+    /**
+     * The reply tree under one comment, read with a single range scan on its materialized path.
+     */
+    public CommentDTO getCommentSubtree(String commentId, int maxDepth, CommentTree.Order order) {
+        Comment root = commentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found: " + commentId));
         
-        String userVote = voteService.getUserVote(commentId, Vote.TargetType.COMMENT);
+        Query query = Query.query(Criteria.where("post").is(root.getPost())
+                .and("path").regex("^" + Pattern.quote(root.getTreePath() + "."))
+                .and("deleted").is(false));
+        List<Comment> descendants = mongoTemplate.find(query, Comment.class);
         
-        // Get replies
-        List<Comment> replies = commentRepository.findRepliesByParentComment(comment);
-        List<CommentDTO> replyDTOs = replies.stream()
-                .map(reply -> {
-                    String replyUserVote = voteService.getUserVote(reply.getId(), Vote.TargetType.COMMENT);
-                    return CommentDTO.fromCommentWithUserVote(reply, replyUserVote);
-                })
-                .collect(Collectors.toList());
+        List<String> commentIds = new ArrayList<>();
+        commentIds.add(commentId);
+        descendants.forEach(descendant -> commentIds.add(descendant.getId()));
+        Map<String, String> userVotes = voteService.getUserVotes(commentIds, Vote.TargetType.COMMENT);
         
-        return CommentDTO.fromCommentWithReplies(comment, userVote, replyDTOs);
+        return CommentDTO.fromCommentWithReplies(root, userVotes.get(commentId),
+                CommentTree.build(descendants, commentId, order, maxDepth, userVotes));
+    }
+    
+    public long countDescendants(String commentId) {
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found: " + commentId));
+        return commentRepository.countDescendants(comment.getPost(), commentId);
     }
     
     @Transactional
@@ -148,11 +473,18 @@ public class CommentService {
             throw new RuntimeException("Access denied: You can only edit your own comments");
         }
         
-        comment.setContent(request.getContent());
-        comment.setEdited(true);
-        comment.setUpdatedAt(LocalDateTime.now());
-        
-        Comment updatedComment = commentRepository.save(comment);
+        // Only the edited fields; votes land on the counters by $inc in between
+        Comment updatedComment = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(commentId)),
+                new Update()
+                        .set("content", request.getContent())
+                        .set("edited", true)
+                        .set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Comment.class);
+        if (updatedComment == null) {
+            throw new RuntimeException("Comment not found: " + commentId);
+        }
+        commentTreeCache.onCommentEdited(updatedComment);
         log.info("Comment updated by {}", currentUser.getUsername());
         
         String userVote = voteService.getUserVote(commentId, Vote.TargetType.COMMENT);
@@ -174,20 +506,70 @@ public class CommentService {
             throw new RuntimeException("Access denied: You can only delete your own comments");
         }
         
-        comment.setDeleted(true);
-        comment.setContent("[deleted]");
-        comment.setUpdatedAt(LocalDateTime.now());
+        // Only the request that actually flips the flag may decrement the post's count
+        long deleted = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(commentId).and("deleted").ne(true)),
+                new Update()
+                        .set("deleted", true)
+                        .set("content", "[deleted]")
+                        .set("updatedAt", LocalDateTime.now()),
+                Comment.class).getModifiedCount();
+        if (deleted == 0) {
+            throw new RuntimeException("Comment already deleted: " + commentId);
+        }
         
-        commentRepository.save(comment);
+        commentTreeCache.onCommentDeleted(comment.getPost().getId(), commentId);
         
         // Update post comment count
-        Post post = comment.getPost();
-        post.setCommentCount(Math.max(0, post.getCommentCount() - 1));
-        postRepository.save(post);
+        incrementCommentCount(comment.getPost().getId(), -1, false);
         
         log.info("Comment deleted by {}", currentUser.getUsername());
     }
     
+    /**
+     * Soft-deletes a comment together with all of its replies at any depth in one update on the
+     * ancestors index, and takes the number actually flipped off the post's comment count.
+     */
+    @Transactional
+    public long deleteCommentSubtree(String commentId) {
+        User currentUser = userService.getCurrentUser()
+                .orElseThrow(() -> new RuntimeException("User not authenticated"));
+        
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found: " + commentId));
+        
+        if (currentUser.getRole() != User.Role.MODERATOR && currentUser.getRole() != User.Role.ADMIN) {
+            throw new RuntimeException("Access denied: Only moderators can delete comment threads");
+        }
+        
+        long deleted = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("post").is(comment.getPost())
+                        .orOperator(Criteria.where("_id").is(commentId), Criteria.where("ancestors").is(commentId))
+                        .and("deleted").ne(true)),
+                new Update()
+                        .set("deleted", true)
+                        .set("content", "[deleted]")
+                        .set("updatedAt", LocalDateTime.now()),
+                Comment.class).getModifiedCount();
+        if (deleted > 0) {
+            commentTreeCache.evict(comment.getPost().getId());
+            incrementCommentCount(comment.getPost().getId(), (int) -deleted, false);
+        }
+        
+        log.info("Comment thread of {} comments deleted by {}", deleted, currentUser.getUsername());
+        return deleted;
+    }
+    
+    private void incrementCommentCount(String postId, int delta, boolean touchActivity) {
+        Query query = Query.query(Criteria.where("_id").is(postId));
+        FeedRanking.includeRankingFields(query);
+        feedRanking.onPostChanged(mongoTemplate.findAndModify(query,
+                HotRank.increment(0, 0, delta, touchActivity ? LocalDateTime.now() : null),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class, mongoTemplate.getCollectionName(Post.class)));
+        postCache.evict(postId);
+    }
+    
     public Page<CommentDTO> getCommentsByUser(String username, Pageable pageable) {
         // Implementation would require getting user first, then their comments
         // Simplified version for now
@@ -195,33 +577,29 @@ public class CommentService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Page<Comment> comments = commentRepository.findByAuthorAndDeletedFalse(user, pageable);
+        Map<String, String> userVotes = voteService.getUserVotes(
+            comments.map(Comment::getId).getContent(), Vote.TargetType.COMMENT);
         
-        return comments.map(comment -> {
-            String userVote = voteService.getUserVote(comment.getId(), Vote.TargetType.COMMENT);
-            return CommentDTO.fromCommentWithUserVote(comment, userVote);
-        });
+        return comments.map(comment -> 
+            CommentDTO.fromCommentWithUserVote(comment, userVotes.get(comment.getId())));
     }
     
-    private List<CommentDTO> buildCommentTree(List<Comment> allComments, String parentId, int maxDepth, int currentDepth) {
-        if (currentDepth >= maxDepth) {
-            return List.of();
-        }
-        
-        // Group comments by parent ID for efficient lookup
-        Map<String, List<Comment>> commentsByParent = new HashMap<>();
-        for (Comment comment : allComments) {
-            String key = comment.getParentComment() != null ? comment.getParentComment().getId() : null;
-            commentsByParent.computeIfAbsent(key, k -> List.of()).add(comment);
-        }
+    public CursorPage<CommentDTO> getCommentsByUserCursor(String username, String cursor, int size) {
+        User author = userService.getUserByUsername(username);
         
-        List<Comment> topLevelComments = commentsByParent.getOrDefault(parentId, List.of());
+        KeysetPager.Slice<Comment> slice = keysetPager.find(
+                Criteria.where("author").is(author).and("deleted").is(false),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")),
+                cursor, size, Comment.class);
+        Map<String, String> userVotes = voteService.getUserVotes(
+            slice.content().stream().map(Comment::getId).collect(Collectors.toList()), Vote.TargetType.COMMENT);
         
-        return topLevelComments.stream()
-                .map(comment -> {
-                    String userVote = voteService.getUserVote(comment.getId(), Vote.TargetType.COMMENT);
-                    List<CommentDTO> replies = buildCommentTree(allComments, comment.getId(), maxDepth, currentDepth + 1);
-                    return CommentDTO.fromCommentWithReplies(comment, userVote, replies);
-                })
+        return CursorPage.of(toCommentDTOs(slice.content(), userVotes), slice.nextCursor());
+    }
+    
+    private List<CommentDTO> toCommentDTOs(List<Comment> comments, Map<String, String> userVotes) {
+        return comments.stream()
+                .map(comment -> CommentDTO.fromCommentWithUserVote(comment, userVotes.get(comment.getId())))
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
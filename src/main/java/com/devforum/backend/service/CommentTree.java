@@ -0,0 +1,123 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.CommentDTO;
+import com.devforum.backend.entity.Comment;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Assembles a post's flat comment list into reply trees in linear time: one pass groups the
+ * comments by parent id, each sibling list is sorted once, and assembly visits every comment
+ * at most once, stopping at {@code maxDepth}. Assembly keeps its own stack, so a reply chain
+ * of any depth cannot overflow the thread's. Comments whose parent is not in the list (for
+ * example a deleted parent) are left out, as they cannot be reached from the top level.
+ */
+public final class CommentTree {
+
+    public enum Order {
+        SCORE, NEWEST, OLDEST;
+
+        public static Order of(String value) {
+            if (value == null || value.isBlank()) {
+                return OLDEST;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown comment order: " + value);
+            }
+        }
+
+        // Same orders as the top-level comment listings, with the id as the final tie-breaker
+        public Sort sort() {
+            return switch (this) {
+                case SCORE -> Sort.by(Sort.Order.desc("upvotes"), Sort.Order.asc("createdAt"), Sort.Order.asc("_id"));
+                case NEWEST -> Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id"));
+                case OLDEST -> Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id"));
+            };
+        }
+
+        // In-memory equivalent of sort()
+        public Comparator<Comment> comparator() {
+            return switch (this) {
+                case SCORE -> Comparator.comparing(Comment::getUpvotes, Comparator.reverseOrder())
+                        .thenComparing(Comment::getCreatedAt)
+                        .thenComparing(Comment::getId);
+                case NEWEST -> Comparator.comparing(Comment::getCreatedAt, Comparator.reverseOrder())
+                        .thenComparing(Comment::getId, Comparator.reverseOrder());
+                case OLDEST -> Comparator.comparing(Comment::getCreatedAt)
+                        .thenComparing(Comment::getId);
+            };
+        }
+    }
+
+    private CommentTree() {
+    }
+
+    public static List<CommentDTO> build(List<Comment> comments, Order order, int maxDepth,
+                                         Map<String, String> userVotes) {
+        return build(comments, null, order, maxDepth, userVotes);
+    }
+
+    /**
+     * Builds the replies under {@code rootId} (null for the top level of a post).
+     */
+    public static List<CommentDTO> build(List<Comment> comments, String rootId, Order order, int maxDepth,
+                                         Map<String, String> userVotes) {
+        Map<String, List<Comment>> childrenByParent = new HashMap<>();
+        for (Comment comment : comments) {
+            childrenByParent.computeIfAbsent(parentId(comment), k -> new ArrayList<>()).add(comment);
+        }
+
+        Comparator<Comment> siblings = order.comparator();
+        for (List<Comment> children : childrenByParent.values()) {
+            children.sort(siblings);
+        }
+        return assemble(childrenByParent, rootId, maxDepth, userVotes);
+    }
+
+    public static String parentId(Comment comment) {
+        List<String> ancestors = comment.getAncestors();
+        if (ancestors != null && !ancestors.isEmpty()) {
+            return ancestors.get(ancestors.size() - 1);
+        }
+        return comment.getParentComment() != null ? comment.getParentComment().getId() : null;
+    }
+
+    private static List<CommentDTO> assemble(Map<String, List<Comment>> childrenByParent, String rootId,
+                                             int maxDepth, Map<String, String> userVotes) {
+        List<CommentDTO> roots = new ArrayList<>();
+        Deque<Level> pending = new ArrayDeque<>();
+        if (maxDepth > 0) {
+            pending.push(new Level(rootId, roots, maxDepth));
+        }
+
+        while (!pending.isEmpty()) {
+            Level level = pending.pop();
+            List<Comment> children = childrenByParent.get(level.parentId());
+            if (children == null) {
+                continue;
+            }
+            for (Comment child : children) {
+                List<CommentDTO> replies = new ArrayList<>();
+                level.nodes().add(CommentDTO.fromCommentWithReplies(child, userVotes.get(child.getId()), replies));
+                if (level.remainingDepth() > 1) {
+                    pending.push(new Level(child.getId(), replies, level.remainingDepth() - 1));
+                }
+            }
+        }
+        return roots;
+    }
+
+    // The children of parentId still to be added to nodes, with the depth left below them
+    private record Level(String parentId, List<CommentDTO> nodes, int remainingDepth) {
+    }
+}
@@ -0,0 +1,512 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.CommentDTO;
+import com.devforum.backend.dto.CursorPage;
+import com.devforum.backend.dto.UserProfileDTO;
+import com.devforum.backend.entity.Comment;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mongodb.DBRef;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-process cache of post comment threads for the tree endpoint, so the first page of
+ * a thread is assembled from memory instead of re-reading every comment for each reader. A
+ * thread is held vote-agnostic, as its comments indexed by parent; callers overlay the reader's
+ * own votes. Comment creates, edits, deletes and vote counter writes on this instance patch the
+ * cached thread in place, and a TTL bounds staleness for writes made on other instances and for
+ * author profiles. Threads over the per-thread cap, at load or after growing through patches,
+ * are not held and are read from Mongo.
+ */
+@Service
+@RequiredArgsConstructor
+public class CommentTreeCache {
+
+    private static final String COMMENTS = "comments";
+
+    // Rough retained size on a 64-bit JVM with compressed oops: a node with its id strings,
+    // two timestamps and the map and list slots that hold it; content is counted at two bytes
+    // per char, and each distinct author profile once per thread
+    private static final int NODE_BYTES = 320;
+    private static final int AUTHOR_BYTES = 400;
+    private static final int THREAD_BYTES = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPager keysetPager;
+
+    @Value("${app.comments.cache.enabled:true}")
+    private boolean enabled;
+
+    // Total comments held across all cached threads
+    @Value("${app.comments.cache.max-comments:200000}")
+    private long maxComments;
+
+    @Value("${app.comments.cache.max-comments-per-thread:5000}")
+    private int maxCommentsPerThread;
+
+    @Value("${app.comments.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private Cache<String, CachedThread> threads;
+
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder oversizedLoads = new LongAdder();
+    private final LongAdder oversizedPatches = new LongAdder();
+
+    // A live comment as shown in the tree, without the reader's vote
+    private record Node(String id, String parentId, String content, UserProfileDTO author,
+                        int upvotes, int downvotes, int level, boolean edited,
+                        LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        Node withContent(String content, LocalDateTime updatedAt) {
+            return new Node(id, parentId, content, author, upvotes, downvotes, level, true, createdAt, updatedAt);
+        }
+
+        Node withVotes(int upvotes, int downvotes) {
+            return new Node(id, parentId, content, author, upvotes, downvotes, level, edited, createdAt, updatedAt);
+        }
+
+        long estimatedBytes() {
+            return NODE_BYTES + 2L * content.length();
+        }
+    }
+
+    private static final class CachedThread {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Node> nodes = new HashMap<>();
+        private final Map<String, List<String>> childIds = new HashMap<>();
+        private final Set<String> authorIds = new HashSet<>();
+        private final boolean oversized;
+        private long estimatedBytes = THREAD_BYTES;
+
+        CachedThread(boolean oversized) {
+            this.oversized = oversized;
+        }
+
+        // Caller holds the write lock, or owns the thread while loading it
+        void add(Node node) {
+            Node previous = nodes.put(node.id(), node);
+            if (previous == null) {
+                childIds.computeIfAbsent(node.parentId(), k -> new ArrayList<>()).add(node.id());
+                estimatedBytes += node.estimatedBytes();
+            } else {
+                estimatedBytes += node.estimatedBytes() - previous.estimatedBytes();
+            }
+            if (node.author() != null && authorIds.add(node.author().getId())) {
+                estimatedBytes += AUTHOR_BYTES;
+            }
+        }
+
+        void replace(Node node) {
+            Node previous = nodes.put(node.id(), node);
+            estimatedBytes += node.estimatedBytes() - previous.estimatedBytes();
+        }
+
+        // Replies of a removed comment stay indexed but are no longer reachable, as in Mongo
+        void remove(String commentId) {
+            Node removed = nodes.remove(commentId);
+            if (removed != null) {
+                List<String> siblings = childIds.get(removed.parentId());
+                if (siblings != null) {
+                    siblings.remove(commentId);
+                }
+                estimatedBytes -= removed.estimatedBytes();
+            }
+        }
+
+        List<Node> children(String parentId, Comparator<Node> order) {
+            List<String> ids = childIds.get(parentId);
+            if (ids == null) {
+                return List.of();
+            }
+            List<Node> children = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Node child = nodes.get(id);
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+            children.sort(order);
+            return children;
+        }
+
+        int weight() {
+            return Math.max(1, nodes.size());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        threads = Caffeine.newBuilder()
+                .maximumWeight(maxComments)
+                .weigher((String postId, CachedThread thread) -> thread.weight())
+                .expireAfter(new LoadTimeExpiry(Duration.ofMillis(ttlMs)))
+                .recordStats()
+                .build();
+    }
+
+    // Expires a thread a fixed time after it was loaded; re-inserting a patched thread to
+    // re-weigh it keeps the time it has left
+    private record LoadTimeExpiry(Duration ttl) implements Expiry<String, CachedThread> {
+
+        @Override
+        public long expireAfterCreate(String postId, CachedThread thread, long currentTime) {
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String postId, CachedThread thread, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String postId, CachedThread thread, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * The first page of a post's comment tree with the same shape, caps and cursors as the
+     * Mongo-backed tree in {@link CommentService#getCommentTree}, and no user votes. Empty when
+     * the cache is disabled or the thread is too large to hold.
+     */
+    public Optional<CursorPage<CommentDTO>> firstPage(String postId, CommentTree.Order order, int maxDepth,
+                                                      int size, int repliesPerNode, int maxNodes) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedThread thread = threads.get(postId, this::load);
+        if (thread.oversized) {
+            return Optional.empty();
+        }
+
+        Comparator<Node> comparator = comparator(order);
+        thread.lock.readLock().lock();
+        try {
+            List<Node> topLevel = thread.children(null, comparator);
+            List<Node> page = topLevel.subList(0, Math.min(size, topLevel.size()));
+            String nextCursor = !page.isEmpty() && page.size() < topLevel.size()
+                    ? cursorAfter(order, page.get(page.size() - 1)) : null;
+            if (maxDepth <= 0) {
+                return Optional.of(CursorPage.of(new ArrayList<>(), nextCursor));
+            }
+
+            List<CommentDTO> tree = new ArrayList<>(page.size());
+            Map<String, CommentDTO> dtos = new HashMap<>();
+            for (Node node : page) {
+                CommentDTO dto = toDTO(postId, node);
+                dtos.put(node.id(), dto);
+                tree.add(dto);
+            }
+
+            // Level by level under the same per-node and per-response budgets as the Mongo path
+            int loaded = page.size();
+            List<Node> frontier = page;
+            for (int depth = 1; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+                int budget = maxNodes - loaded;
+                int limit = depth < maxDepth ? Math.min(repliesPerNode, budget) : 0;
+
+                List<Node> next = new ArrayList<>();
+                for (Node parent : frontier) {
+                    List<Node> children = thread.children(parent.id(), comparator);
+                    int taken = Math.min(Math.min(children.size(), limit), budget - next.size());
+                    CommentDTO parentDto = dtos.get(parent.id());
+                    parentDto.setRemainingReplies((long) children.size() - taken);
+                    if (taken < children.size() && taken > 0) {
+                        parentDto.setRepliesCursor(cursorAfter(order, children.get(taken - 1)));
+                    }
+                    for (Node child : children.subList(0, taken)) {
+                        CommentDTO dto = toDTO(postId, child);
+                        dtos.put(child.id(), dto);
+                        parentDto.getReplies().add(dto);
+                        next.add(child);
+                    }
+                }
+                loaded += next.size();
+                frontier = next;
+            }
+            return Optional.of(CursorPage.of(tree, nextCursor));
+        } finally {
+            thread.lock.readLock().unlock();
+        }
+    }
+
+    public void onCommentCreated(Comment comment) {
+        patch(comment.getPost().getId(), thread -> thread.add(toNode(comment)));
+    }
+
+    public void onCommentEdited(Comment comment) {
+        patch(comment.getPost().getId(), thread -> {
+            Node node = thread.nodes.get(comment.getId());
+            if (node != null) {
+                thread.replace(node.withContent(comment.getContent(), comment.getUpdatedAt()));
+            }
+        });
+    }
+
+    public void onCommentDeleted(String postId, String commentId) {
+        patch(postId, thread -> thread.remove(commentId));
+    }
+
+    // Subtree deletes are rare moderator actions; the thread is simply reloaded on next read
+    public void evict(String postId) {
+        if (enabled && postId != null) {
+            threads.invalidate(postId);
+        }
+    }
+
+    public void onVoteCountsChanged(String postId, String commentId, int upvotes, int downvotes) {
+        patch(postId, thread -> {
+            Node node = thread.nodes.get(commentId);
+            if (node != null) {
+                thread.replace(node.withVotes(upvotes, downvotes));
+            }
+        });
+    }
+
+    /**
+     * Re-reads the counters of comments updated by a bulk $inc and patches the cached threads
+     * they belong to; one projected $in query, skipped when nothing is cached.
+     */
+    public void onVoteCountsChanged(Collection<String> commentIds) {
+        if (!enabled || commentIds.isEmpty() || threads.estimatedSize() == 0) {
+            return;
+        }
+        List<ObjectId> ids = commentIds.stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("post", "upvotes", "downvotes");
+        for (Document comment : mongoTemplate.find(query, Document.class, COMMENTS)) {
+            if (comment.get("post") instanceof DBRef postRef) {
+                onVoteCountsChanged(postRef.getId().toString(), comment.get("_id").toString(),
+                        comment.getInteger("upvotes", 0), comment.getInteger("downvotes", 0));
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxComments", maxComments);
+        stats.put("maxCommentsPerThread", maxCommentsPerThread);
+        stats.put("patches", patches.sum());
+        stats.put("oversizedLoads", oversizedLoads.sum());
+        stats.put("oversizedPatches", oversizedPatches.sum());
+        if (!enabled) {
+            return stats;
+        }
+
+        CacheStats cacheStats = threads.stats();
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+
+        List<Map<String, Object>> perThread = new ArrayList<>();
+        long totalComments = 0;
+        long totalBytes = 0;
+        for (Map.Entry<String, CachedThread> entry : threads.asMap().entrySet()) {
+            CachedThread thread = entry.getValue();
+            if (thread.oversized) {
+                continue;
+            }
+            Map<String, Object> threadStats = new LinkedHashMap<>();
+            thread.lock.readLock().lock();
+            try {
+                threadStats.put("postId", entry.getKey());
+                threadStats.put("comments", thread.nodes.size());
+                threadStats.put("authors", thread.authorIds.size());
+                threadStats.put("estimatedBytes", thread.estimatedBytes);
+                totalComments += thread.nodes.size();
+                totalBytes += thread.estimatedBytes;
+            } finally {
+                thread.lock.readLock().unlock();
+            }
+            perThread.add(threadStats);
+        }
+        perThread.sort(Comparator.comparing(
+                (Map<String, Object> thread) -> (Long) thread.get("estimatedBytes")).reversed());
+
+        stats.put("threads", perThread.size());
+        stats.put("comments", totalComments);
+        stats.put("estimatedBytes", totalBytes);
+        stats.put("avgBytesPerThread", perThread.isEmpty() ? null : totalBytes / perThread.size());
+        stats.put("avgBytesPerComment", totalComments > 0 ? totalBytes / totalComments : null);
+        stats.put("largestThreads", perThread.subList(0, Math.min(20, perThread.size())));
+        return stats;
+    }
+
+    private void patch(String postId, Consumer<CachedThread> change) {
+        if (!enabled || postId == null) {
+            return;
+        }
+        CachedThread thread = threads.getIfPresent(postId);
+        if (thread == null) {
+            // A load may be in flight and have missed this write; invalidate waits for it and drops it
+            threads.invalidate(postId);
+            return;
+        }
+        if (thread.oversized) {
+            return;
+        }
+        int size;
+        thread.lock.writeLock().lock();
+        try {
+            change.accept(thread);
+            size = thread.nodes.size();
+        } finally {
+            thread.lock.writeLock().unlock();
+        }
+        patches.increment();
+
+        // Re-inserted only if a reload has not replaced it meanwhile; the weight is taken again and
+        // the expiry keeps the time left. A thread grown past the cap is held as oversized instead.
+        if (size > maxCommentsPerThread) {
+            if (threads.asMap().replace(postId, thread, new CachedThread(true))) {
+                oversizedPatches.increment();
+            }
+        } else {
+            threads.asMap().replace(postId, thread, thread);
+        }
+    }
+
+    private CachedThread load(String postId) {
+        if (!ObjectId.isValid(postId)) {
+            return new CachedThread(false);
+        }
+        Query query = Query.query(Criteria.where("post")
+                .is(new DBRef(mongoTemplate.getCollectionName(Post.class), new ObjectId(postId)))
+                .and("deleted").is(false));
+        query.fields().include("_id", "content", "author", "parentComment", "upvotes", "downvotes",
+                "level", "edited", "createdAt", "updatedAt");
+        query.limit(maxCommentsPerThread + 1);
+        List<Document> comments = mongoTemplate.find(query, Document.class, COMMENTS);
+        if (comments.size() > maxCommentsPerThread) {
+            oversizedLoads.increment();
+            return new CachedThread(true);
+        }
+
+        // One lookup for all authors; each profile is shared by every comment of that author
+        Set<Object> authorIds = new HashSet<>();
+        for (Document comment : comments) {
+            if (comment.get("author") instanceof DBRef authorRef) {
+                authorIds.add(authorRef.getId());
+            }
+        }
+        Map<String, UserProfileDTO> authors = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (User user : mongoTemplate.find(Query.query(Criteria.where("_id").in(authorIds)), User.class)) {
+                authors.put(user.getId(), UserProfileDTO.fromUser(user, false));
+            }
+        }
+
+        CachedThread thread = new CachedThread(false);
+        for (Document comment : comments) {
+            String parentId = comment.get("parentComment") instanceof DBRef parentRef
+                    ? parentRef.getId().toString() : null;
+            String authorId = comment.get("author") instanceof DBRef authorRef
+                    ? authorRef.getId().toString() : null;
+            thread.add(new Node(
+                    comment.get("_id").toString(),
+                    parentId,
+                    comment.getString("content"),
+                    authorId != null ? authors.get(authorId) : null,
+                    comment.getInteger("upvotes", 0),
+                    comment.getInteger("downvotes", 0),
+                    comment.getInteger("level", 0),
+                    Boolean.TRUE.equals(comment.getBoolean("edited")),
+                    toLocalDateTime(comment.getDate("createdAt")),
+                    toLocalDateTime(comment.getDate("updatedAt"))));
+        }
+        return thread;
+    }
+
+    private static Node toNode(Comment comment) {
+        return new Node(
+                comment.getId(),
+                comment.getParentComment() != null ? comment.getParentComment().getId() : null,
+                comment.getContent(),
+                comment.getAuthor() != null ? UserProfileDTO.fromUser(comment.getAuthor(), false) : null,
+                comment.getUpvotes(),
+                comment.getDownvotes(),
+                comment.getLevel(),
+                Boolean.TRUE.equals(comment.getEdited()),
+                comment.getCreatedAt(),
+                comment.getUpdatedAt());
+    }
+
+    private static CommentDTO toDTO(String postId, Node node) {
+        return CommentDTO.builder()
+                .id(node.id())
+                .content(node.content())
+                .author(node.author())
+                .postId(postId)
+                .parentCommentId(node.parentId())
+                .upvotes(node.upvotes())
+                .downvotes(node.downvotes())
+                .score(node.upvotes() - node.downvotes())
+                .level(node.level())
+                .deleted(false)
+                .edited(node.edited())
+                .createdAt(node.createdAt())
+                .updatedAt(node.updatedAt())
+                .build();
+    }
+
+    // The keyset cursor Mongo-backed paging would hand out for this comment
+    private String cursorAfter(CommentTree.Order order, Node node) {
+        Comment lastRow = Comment.builder()
+                .id(node.id())
+                .upvotes(node.upvotes())
+                .createdAt(node.createdAt())
+                .build();
+        return keysetPager.cursorAfter(order.sort(), lastRow);
+    }
+
+    // In-memory equivalent of CommentTree.Order#sort()
+    private static Comparator<Node> comparator(CommentTree.Order order) {
+        return switch (order) {
+            case SCORE -> Comparator.comparingInt(Node::upvotes).reversed()
+                    .thenComparing(Node::createdAt)
+                    .thenComparing(Node::id);
+            case NEWEST -> Comparator.comparing(Node::createdAt, Comparator.reverseOrder())
+                    .thenComparing(Node::id, Comparator.reverseOrder());
+            case OLDEST -> Comparator.comparing(Node::createdAt)
+                    .thenComparing(Node::id);
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
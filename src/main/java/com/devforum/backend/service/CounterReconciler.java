@@ -0,0 +1,357 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Background job that recomputes the denormalized counters on posts, comments and tags from
+ * their source collections. Each collection is walked in _id-ordered chunks; the true values
+ * for a chunk come from one aggregation per source, and only documents that differ are
+ * written back. Drift is re-checked after a settle delay and written with a compare-and-set
+ * on the old values, so in-flight votes and comments are never overwritten.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CounterReconciler {
+
+    private static final String POSTS = "posts";
+    private static final String COMMENTS = "comments";
+    private static final String TAGS = "tags";
+    private static final String VOTES = "votes";
+
+    private final MongoTemplate mongoTemplate;
+    private final VoteAggregationBuffer voteAggregationBuffer;
+    private final FeedRanking feedRanking;
+    private final PostCache postCache;
+    private final CommentTreeCache commentTreeCache;
+
+    @Value("${app.counters.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.counters.reconcile.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.counters.reconcile.pause-ratio:1.0}")
+    private double pauseRatio;
+
+    @Value("${app.counters.reconcile.settle-ms:2000}")
+    private long settleMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, PhaseProgress> phases = Map.of();
+    private volatile String currentPhase;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    @Scheduled(cron = "${app.counters.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Starts a reconciliation pass in the background; returns false if one is already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "counter-reconciler");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> phaseStats = new LinkedHashMap<>();
+        phases.forEach((name, progress) -> phaseStats.put(name, progress.toMap()));
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running.get());
+        status.put("currentPhase", currentPhase);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        status.put("chunkSize", chunkSize);
+        status.put("pauseRatio", pauseRatio);
+        status.put("phases", phaseStats);
+        return status;
+    }
+
+    private void run() {
+        Map<String, PhaseProgress> progress = new LinkedHashMap<>();
+        progress.put(POSTS, new PhaseProgress());
+        progress.put(COMMENTS, new PhaseProgress());
+        progress.put(TAGS, new PhaseProgress());
+        phases = progress;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+
+        try {
+            reconcile(POSTS, List.of("upvotes", "downvotes", "commentCount"),
+                    this::expectedPostCounters,
+                    id -> voteAggregationBuffer.hasPending(Vote.TargetType.POST, id.toString()));
+            reconcile(COMMENTS, List.of("upvotes", "downvotes"),
+                    chunk -> countVotes(Vote.TargetType.COMMENT, chunk),
+                    id -> voteAggregationBuffer.hasPending(Vote.TargetType.COMMENT, id.toString()));
+            reconcile(TAGS, List.of("postCount"), this::expectedTagCounts, id -> false);
+            finishedAt = LocalDateTime.now();
+            log.info("Counter reconciliation finished: {}", progress);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "Interrupted";
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Counter reconciliation failed during {}: {}", currentPhase, e.getMessage());
+        } finally {
+            currentPhase = null;
+            running.set(false);
+        }
+    }
+
+    private void reconcile(String collection, List<String> fields,
+                           Function<List<Document>, Map<Object, Map<String, Integer>>> expectedValues,
+                           Predicate<Object> busy) throws InterruptedException {
+        currentPhase = collection;
+        PhaseProgress progress = phases.get(collection);
+        Object lastId = null;
+
+        while (true) {
+            List<Document> chunk = readChunk(collection, fields, lastId);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long started = System.nanoTime();
+            lastId = chunk.get(chunk.size() - 1).get("_id");
+
+            List<Document> drifted = findDrift(chunk, fields, expectedValues.apply(chunk), busy).keySet()
+                    .stream().toList();
+            if (!drifted.isEmpty()) {
+                // Counters touched by a request in flight settle within milliseconds; only drift
+                // that survives the delay with unchanged counters is real
+                Thread.sleep(settleMs);
+                Map<Document, Map<String, Integer>> confirmed = confirmDrift(collection, fields, drifted,
+                        expectedValues, busy);
+                progress.corrected.add(writeCorrections(collection, fields, confirmed));
+                progress.skipped.add(drifted.size() - confirmed.size());
+            }
+
+            progress.scanned.add(chunk.size());
+            progress.drifted.add(drifted.size());
+            progress.lastId = lastId.toString();
+
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            Thread.sleep(Math.max(10, (long) (elapsedMs * pauseRatio)));
+        }
+        progress.done = true;
+    }
+
+    private List<Document> readChunk(String collection, List<String> fields, Object afterId) {
+        Query query = new Query();
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("_id").gt(afterId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(chunkSize);
+        query.fields().include("_id");
+        fields.forEach(field -> query.fields().include(field));
+        if (TAGS.equals(collection)) {
+            query.fields().include("name");
+        }
+        return mongoTemplate.find(query, Document.class, collection);
+    }
+
+    private Map<Document, Map<String, Integer>> findDrift(List<Document> docs, List<String> fields,
+                                                         Map<Object, Map<String, Integer>> expected,
+                                                         Predicate<Object> busy) {
+        Map<Document, Map<String, Integer>> drifted = new LinkedHashMap<>();
+        for (Document doc : docs) {
+            Object id = doc.get("_id");
+            Map<String, Integer> values = expected.getOrDefault(id, Map.of());
+            for (String field : fields) {
+                Object current = doc.get(field);
+                int actual = current instanceof Number number ? number.intValue() : 0;
+                if (current == null || actual != values.getOrDefault(field, 0)) {
+                    if (!busy.test(id)) {
+                        drifted.put(doc, values);
+                    }
+                    break;
+                }
+            }
+        }
+        return drifted;
+    }
+
+    private Map<Document, Map<String, Integer>> confirmDrift(String collection, List<String> fields,
+                                                            List<Document> drifted,
+                                                            Function<List<Document>, Map<Object, Map<String, Integer>>> expectedValues,
+                                                            Predicate<Object> busy) {
+        Map<Object, Document> before = new HashMap<>();
+        drifted.forEach(doc -> before.put(doc.get("_id"), doc));
+
+        Query query = Query.query(Criteria.where("_id").in(before.keySet()));
+        query.fields().include("_id");
+        fields.forEach(field -> query.fields().include(field));
+        if (TAGS.equals(collection)) {
+            query.fields().include("name");
+        }
+        List<Document> current = mongoTemplate.find(query, Document.class, collection).stream()
+                .filter(doc -> sameCounters(before.get(doc.get("_id")), doc, fields))
+                .toList();
+        return findDrift(current, fields, expectedValues.apply(current), busy);
+    }
+
+    private long writeCorrections(String collection, List<String> fields,
+                                  Map<Document, Map<String, Integer>> corrections) {
+        if (corrections.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        corrections.forEach((doc, values) -> {
+            // Compare-and-set on the observed counters so a concurrent $inc wins over the correction
+            Criteria criteria = Criteria.where("_id").is(doc.get("_id"));
+            Update update = new Update();
+            for (String field : fields) {
+                criteria.and(field).is(doc.get(field));
+                update.set(field, values.getOrDefault(field, 0));
+            }
+            bulk.updateOne(Query.query(criteria), update);
+        });
+        long corrected = bulk.execute().getModifiedCount();
+        if (POSTS.equals(collection)) {
+            List<Object> ids = corrections.keySet().stream().map(doc -> doc.get("_id")).toList();
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), HotRank.refresh(), POSTS);
+            postCache.evictAll(ids);
+            feedRanking.refresh(ids);
+        } else if (COMMENTS.equals(collection)) {
+            commentTreeCache.onVoteCountsChanged(
+                    corrections.keySet().stream().map(doc -> doc.get("_id").toString()).toList());
+        }
+        log.debug("Corrected counters on {} of {} drifted {}", corrected, corrections.size(), collection);
+        return corrected;
+    }
+
+    private Map<Object, Map<String, Integer>> expectedPostCounters(List<Document> posts) {
+        Map<Object, Map<String, Integer>> expected = countVotes(Vote.TargetType.POST, posts);
+
+        List<Object> ids = posts.stream().map(post -> post.get("_id")).toList();
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("post.$id", new Document("$in", ids))
+                        .append("deleted", new Document("$ne", true))),
+                new Document("$group", new Document("_id", "$post.$id")
+                        .append("count", new Document("$sum", 1))));
+        for (Document row : mongoTemplate.getCollection(COMMENTS).aggregate(pipeline)) {
+            expected.computeIfAbsent(row.get("_id"), id -> new HashMap<>())
+                    .put("commentCount", row.getInteger("count"));
+        }
+        return expected;
+    }
+
+    private Map<Object, Map<String, Integer>> countVotes(Vote.TargetType targetType, List<Document> targets) {
+        // Votes reference their target by the hex string of its _id
+        Map<String, Object> idsByHex = new HashMap<>();
+        targets.forEach(target -> idsByHex.put(target.get("_id").toString(), target.get("_id")));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("targetType", targetType.name())
+                        .append("targetId", new Document("$in", new ArrayList<>(idsByHex.keySet())))),
+                new Document("$group", new Document("_id",
+                        new Document("targetId", "$targetId").append("voteType", "$voteType"))
+                        .append("count", new Document("$sum", 1))));
+
+        Map<Object, Map<String, Integer>> expected = new HashMap<>();
+        for (Document row : mongoTemplate.getCollection(VOTES).aggregate(pipeline)) {
+            Document key = row.get("_id", Document.class);
+            Object id = idsByHex.get(key.getString("targetId"));
+            String field = Vote.VoteType.UPVOTE.name().equals(key.getString("voteType")) ? "upvotes" : "downvotes";
+            expected.computeIfAbsent(id, k -> new HashMap<>()).put(field, row.getInteger("count"));
+        }
+        return expected;
+    }
+
+    private Map<Object, Map<String, Integer>> expectedTagCounts(List<Document> tags) {
+        Map<String, Object> idsByName = new HashMap<>();
+        tags.forEach(tag -> idsByName.put(tag.getString("name"), tag.get("_id")));
+        List<String> names = new ArrayList<>(idsByName.keySet());
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("tags", new Document("$in", names))
+                        .append("deleted", new Document("$ne", true))),
+                new Document("$unwind", "$tags"),
+                new Document("$match", new Document("tags", new Document("$in", names))),
+                new Document("$group", new Document("_id", "$tags")
+                        .append("count", new Document("$sum", 1))));
+
+        Map<Object, Map<String, Integer>> expected = new HashMap<>();
+        for (Document row : mongoTemplate.getCollection(POSTS).aggregate(pipeline)) {
+            expected.put(idsByName.get(row.getString("_id")), Map.of("postCount", row.getInteger("count")));
+        }
+        return expected;
+    }
+
+    private static boolean sameCounters(Document before, Document after, List<String> fields) {
+        if (before == null) {
+            return false;
+        }
+        for (String field : fields) {
+            if (!Objects.equals(before.get(field), after.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class PhaseProgress {
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder drifted = new LongAdder();
+        private final LongAdder corrected = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private volatile String lastId;
+        private volatile boolean done;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("scanned", scanned.sum());
+            map.put("drifted", drifted.sum());
+            map.put("corrected", corrected.sum());
+            map.put("skipped", skipped.sum());
+            map.put("lastId", lastId);
+            map.put("done", done);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return toMap().toString();
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory top-K boards for the hot, top and trending feeds, globally and per tag. Boards are
+ * loaded from Mongo (global ones at startup, tag boards on first use), then kept current by
+ * post, vote and comment events. Every post a board has dropped or never loaded ranks at or
+ * below the board's ceiling, so the entries above the ceiling are exactly the feed's head;
+ * pages inside that head are served from memory and deeper pages fall back to Mongo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedRanking {
+
+    public enum Feed { HOT, TOP, TRENDING }
+
+    public static final Duration TRENDING_WINDOW = Duration.ofDays(1);
+
+    private static final String POSTS = "posts";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.ranking.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ranking.board-size:1000}")
+    private int boardSize;
+
+    @Value("${app.ranking.tag-board-size:200}")
+    private int tagBoardSize;
+
+    @Value("${app.ranking.max-tag-boards:300}")
+    private int maxTagBoards;
+
+    private final Map<BoardKey, Board> boards = new ConcurrentHashMap<>();
+
+    // Posts changed while a rebuild is loading, re-read once the new boards are swapped in
+    private volatile Set<String> touchedDuringRebuild;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private volatile LocalDateTime lastRebuildAt;
+    private volatile long lastRebuildDurationMs;
+
+    /**
+     * The ranking-relevant state of a post, read from an entity or a projected raw document.
+     */
+    public record RankedPost(String id, List<String> tags, double hotRank, int upvotes, int downvotes,
+                             Long lastActivityAt, boolean deleted) {
+
+        public static RankedPost of(Post post) {
+            return new RankedPost(post.getId(),
+                    post.getTags() != null ? post.getTags() : List.of(),
+                    post.getHotRank() != null ? post.getHotRank() : Double.NEGATIVE_INFINITY,
+                    post.getUpvotes() != null ? post.getUpvotes() : 0,
+                    post.getDownvotes() != null ? post.getDownvotes() : 0,
+                    post.getLastActivityAt() != null
+                            ? post.getLastActivityAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                            : null,
+                    Boolean.TRUE.equals(post.getDeleted()));
+        }
+
+        public static RankedPost of(Document post) {
+            Object hotRank = post.get("hotRank");
+            Date lastActivityAt = post.getDate("lastActivityAt");
+            return new RankedPost(post.get("_id").toString(),
+                    post.getList("tags", String.class, List.of()),
+                    hotRank instanceof Number number ? number.doubleValue() : Double.NEGATIVE_INFINITY,
+                    post.getInteger("upvotes", 0),
+                    post.getInteger("downvotes", 0),
+                    lastActivityAt != null ? lastActivityAt.getTime() : null,
+                    post.getBoolean("deleted", false));
+        }
+    }
+
+    public record RankedPage(List<String> postIds, long total) {
+    }
+
+    /**
+     * Adds the fields {@link RankedPost#of(Document)} needs to a projection.
+     */
+    public static void includeRankingFields(Query query) {
+        query.fields().include("tags", "hotRank", "upvotes", "downvotes", "lastActivityAt", "deleted");
+    }
+
+    /**
+     * The feed's Mongo order, with _id as the final tie-breaker so memory and Mongo pages line up.
+     */
+    public static Sort sort(Feed feed) {
+        return switch (feed) {
+            case HOT -> Sort.by(Sort.Order.desc("hotRank"), Sort.Order.desc("_id"));
+            case TOP -> Sort.by(Sort.Order.desc("upvotes"), Sort.Order.asc("downvotes"), Sort.Order.desc("_id"));
+            case TRENDING -> Sort.by(Sort.Order.desc("lastActivityAt"), Sort.Order.desc("_id"));
+        };
+    }
+
+    /**
+     * Returns the page from memory, or empty when it reaches past what the board knows exactly.
+     */
+    public Optional<RankedPage> page(Feed feed, String tag, int offset, int size) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Board board = tag == null ? boards.get(new BoardKey(feed, null)) : tagBoard(feed, tag);
+        Optional<RankedPage> page = board != null
+                ? board.page(offset, size, feed == Feed.TRENDING ? trendingCutoff() : null)
+                : Optional.empty();
+        (page.isPresent() ? hits : misses).increment();
+        return page;
+    }
+
+    public void onPostCreated(Post post) {
+        apply(RankedPost.of(post), true, false);
+    }
+
+    public void onPostUpdated(Post post) {
+        apply(RankedPost.of(post), false, true);
+    }
+
+    public void onPostChanged(Document post) {
+        if (post != null) {
+            apply(RankedPost.of(post), false, false);
+        }
+    }
+
+    public void onPostDeleted(String postId) {
+        if (!enabled) {
+            return;
+        }
+        events.increment();
+        markTouched(postId);
+        boards.values().forEach(board -> board.remove(postId, true));
+    }
+
+    /**
+     * Re-reads the ranking fields of posts changed by bulk writes and applies them.
+     */
+    public void refresh(Collection<?> postIds) {
+        if (!enabled || postIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(postIds));
+        includeRankingFields(query);
+        mongoTemplate.find(query, Document.class, POSTS).forEach(this::onPostChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads the global boards and the tag boards used since the last rebuild; idle tag
+     * boards are dropped and will be loaded again on their next request.
+     */
+    @Scheduled(fixedDelayString = "${app.ranking.rebuild-interval-ms:900000}",
+               initialDelayString = "${app.ranking.rebuild-interval-ms:900000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long idleSince = lastRebuildAt != null ? toMillis(lastRebuildAt) : 0;
+
+        for (BoardKey key : new ArrayList<>(boards.keySet())) {
+            Board board = boards.get(key);
+            if (key.tag() != null && board != null && board.lastAccess < idleSince) {
+                boards.remove(key);
+            }
+        }
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+        Map<BoardKey, Board> loaded = new HashMap<>();
+        try {
+            for (Feed feed : Feed.values()) {
+                loaded.put(new BoardKey(feed, null), load(feed, null, boardSize));
+            }
+            for (BoardKey key : new ArrayList<>(boards.keySet())) {
+                if (key.tag() != null) {
+                    loaded.put(key, load(key.feed(), key.tag(), tagBoardSize));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Feed ranking rebuild failed: {}", e.getMessage());
+            touchedDuringRebuild = null;
+            return;
+        }
+
+        // Events applied after this point see the new boards; anything that hit the old ones is re-read
+        boards.putAll(loaded);
+        Set<String> touched = touchedDuringRebuild;
+        touchedDuringRebuild = null;
+        replay(touched);
+
+        lastRebuildAt = LocalDateTime.now();
+        lastRebuildDurationMs = System.currentTimeMillis() - started;
+        log.info("Rebuilt {} feed ranking boards in {} ms", boards.size(), lastRebuildDurationMs);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int tagBoards = 0;
+        long entries = 0;
+        for (Map.Entry<BoardKey, Board> entry : boards.entrySet()) {
+            if (entry.getKey().tag() != null) {
+                tagBoards++;
+            }
+            entries += entry.getValue().size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("boards", boards.size());
+        stats.put("tagBoards", tagBoards);
+        stats.put("entries", entries);
+        stats.put("boardSize", boardSize);
+        stats.put("tagBoardSize", tagBoardSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("events", events.sum());
+        stats.put("lastRebuildAt", lastRebuildAt);
+        stats.put("lastRebuildDurationMs", lastRebuildDurationMs);
+        return stats;
+    }
+
+    private void apply(RankedPost post, boolean created, boolean tagsMayHaveChanged) {
+        if (!enabled) {
+            return;
+        }
+        events.increment();
+        if (post.deleted()) {
+            onPostDeleted(post.id());
+            return;
+        }
+
+        markTouched(post.id());
+        for (Map.Entry<BoardKey, Board> entry : boards.entrySet()) {
+            String tag = entry.getKey().tag();
+            if (tag == null || post.tags().contains(tag)) {
+                entry.getValue().upsert(key(entry.getKey().feed(), post), created);
+            } else if (tagsMayHaveChanged) {
+                entry.getValue().remove(post.id(), true);
+            }
+        }
+    }
+
+    private Board tagBoard(Feed feed, String tag) {
+        BoardKey key = new BoardKey(feed, tag);
+        Board board = boards.get(key);
+        if (board == null) {
+            if (boards.size() >= maxTagBoards + Feed.values().length) {
+                evictLeastRecentlyUsedTagBoard();
+            }
+            // Loaded outside the map: computeIfAbsent would hold the bin lock for the whole query
+            Board loaded = load(feed, tag, tagBoardSize);
+            Board existing = boards.putIfAbsent(key, loaded);
+            board = existing != null ? existing : loaded;
+        }
+        board.lastAccess = System.currentTimeMillis();
+        return board;
+    }
+
+    private void markTouched(String postId) {
+        Set<String> touched = touchedDuringRebuild;
+        if (touched != null) {
+            touched.add(postId);
+        }
+    }
+
+    private void replay(Set<String> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(postIds));
+        includeRankingFields(query);
+        Set<String> missing = new HashSet<>(postIds);
+        for (Document post : mongoTemplate.find(query, Document.class, POSTS)) {
+            RankedPost ranked = RankedPost.of(post);
+            missing.remove(ranked.id());
+            apply(ranked, false, true);
+        }
+        missing.forEach(this::onPostDeleted);
+    }
+
+    private synchronized void evictLeastRecentlyUsedTagBoard() {
+        boards.entrySet().stream()
+                .filter(entry -> entry.getKey().tag() != null)
+                .min((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess))
+                .ifPresent(entry -> boards.remove(entry.getKey()));
+    }
+
+    private Board load(Feed feed, String tag, int capacity) {
+        Criteria criteria = Criteria.where("deleted").is(false);
+        if (tag != null) {
+            criteria.and("tags").is(tag);
+        }
+        if (feed == Feed.TRENDING) {
+            criteria.and("lastActivityAt").gte(LocalDateTime.now().minus(TRENDING_WINDOW));
+        }
+
+        // One row past the capacity tells us the highest-ranked post the board won't hold
+        Query query = Query.query(criteria).with(sort(feed)).limit(capacity + 1);
+        query.fields().include("_id");
+        includeRankingFields(query);
+        List<Document> posts = mongoTemplate.find(query, Document.class, POSTS);
+
+        long total = posts.size() <= capacity ? posts.size() : mongoTemplate.count(Query.query(criteria), POSTS);
+        Board board = new Board(capacity, total);
+        for (int i = 0; i < posts.size() && i < capacity; i++) {
+            board.upsert(key(feed, RankedPost.of(posts.get(i))), false);
+        }
+        if (posts.size() > capacity) {
+            board.lowerCeiling(key(feed, RankedPost.of(posts.get(capacity))));
+        }
+        return board;
+    }
+
+    private static RankKey key(Feed feed, RankedPost post) {
+        return switch (feed) {
+            case HOT -> new RankKey(post.hotRank(), 0, post.id());
+            case TOP -> new RankKey(post.upvotes(), -post.downvotes(), post.id());
+            case TRENDING -> new RankKey(
+                    post.lastActivityAt() != null ? post.lastActivityAt() : Double.NEGATIVE_INFINITY, 0, post.id());
+        };
+    }
+
+    private static Double trendingCutoff() {
+        return (double) (System.currentTimeMillis() - TRENDING_WINDOW.toMillis());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record BoardKey(Feed feed, String tag) {
+    }
+
+    // Orders by rank, best first; the post id breaks ties the same way the Mongo sort does
+    private record RankKey(double primary, double secondary, String id) implements Comparable<RankKey> {
+        @Override
+        public int compareTo(RankKey other) {
+            int result = Double.compare(other.primary, primary);
+            if (result == 0) {
+                result = Double.compare(other.secondary, secondary);
+            }
+            return result != 0 ? result : other.id.compareTo(id);
+        }
+    }
+
+    /**
+     * A bounded ranking of one feed. The ceiling is the best-ranked post known to be missing
+     * from the board; entries ranked above it are exact.
+     */
+    private static final class Board {
+
+        private final int capacity;
+        private final TreeSet<RankKey> entries = new TreeSet<>();
+        private final Map<String, RankKey> keysById = new HashMap<>();
+        private RankKey ceiling;
+        private long estimatedTotal;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Board(int capacity, long estimatedTotal) {
+            this.capacity = capacity;
+            this.estimatedTotal = estimatedTotal;
+        }
+
+        synchronized void upsert(RankKey key, boolean created) {
+            RankKey previous = keysById.put(key.id(), key);
+            if (previous != null) {
+                entries.remove(previous);
+            } else if (created) {
+                estimatedTotal++;
+            }
+            entries.add(key);
+
+            while (entries.size() > capacity) {
+                RankKey evicted = entries.pollLast();
+                keysById.remove(evicted.id());
+                lowerCeiling(evicted);
+            }
+        }
+
+        synchronized void remove(String postId, boolean deleted) {
+            RankKey key = keysById.remove(postId);
+            if (key != null) {
+                entries.remove(key);
+                if (deleted) {
+                    estimatedTotal = Math.max(0, estimatedTotal - 1);
+                }
+            }
+        }
+
+        synchronized void lowerCeiling(RankKey missing) {
+            if (ceiling == null || missing.compareTo(ceiling) < 0) {
+                ceiling = missing;
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized Optional<RankedPage> page(int offset, int size, Double minPrimary) {
+            List<String> ids = new ArrayList<>(size);
+            int exact = 0;
+            boolean complete = true;
+
+            for (RankKey key : entries) {
+                if (ceiling != null && key.compareTo(ceiling) >= 0) {
+                    complete = false;
+                    break;
+                }
+                // Entries are ordered by activity, so the first one outside the window ends the feed
+                if (minPrimary != null && key.primary() < minPrimary) {
+                    break;
+                }
+                if (exact >= offset && ids.size() < size) {
+                    ids.add(key.id());
+                }
+                exact++;
+            }
+            if (complete && ceiling != null && exact == entries.size()) {
+                // Ran out of entries while unseen posts may still follow
+                complete = false;
+            }
+
+            if (complete) {
+                return Optional.of(new RankedPage(ids, exact));
+            }
+            if (offset + size > exact) {
+                return Optional.empty();
+            }
+            return Optional.of(new RankedPage(ids, Math.max(estimatedTotal, exact)));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.PostSummaryDTO;
+import com.devforum.backend.entity.Vote;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Short-lived cache of serialized post listing responses (feeds, tags, pinned, search). The
+ * response is built once per normalized request key without any user's votes, stored as JSON
+ * bytes (plus a gzipped copy when large enough) with a strong ETag, and replayed to anonymous
+ * clients, who get a 304 when their If-None-Match still matches. Signed-in users share the
+ * cached listing but have their own userVote overlaid and re-serialized, without an ETag.
+ */
+@Service
+@RequiredArgsConstructor
+public class FeedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final UserService userService;
+    private final VoteService voteService;
+
+    @Value("${app.responses.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.responses.cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${app.responses.cache.max-entries:2000}")
+    private long maxEntries;
+
+    @Value("${app.responses.cache.max-page:4}")
+    private int maxPage;
+
+    @Value("${app.responses.cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    private Cache<String, CachedResponse> responses;
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+
+    // Only the first pages are shared widely enough to be worth a slot
+    public boolean isCacheable(int page) {
+        return enabled && page <= maxPage;
+    }
+
+    public ResponseEntity<byte[]> slice(String key, HttpServletRequest request,
+                                        Supplier<Slice<PostSummaryDTO>> loader) {
+        return respond(key, request, () -> {
+            Slice<PostSummaryDTO> slice = loader.get().map(FeedResponseCache::withoutVote);
+            return new Listing(slice.getContent(), slice::map);
+        });
+    }
+
+    public ResponseEntity<byte[]> list(String key, HttpServletRequest request,
+                                       Supplier<List<PostSummaryDTO>> loader) {
+        return respond(key, request, () -> {
+            List<PostSummaryDTO> list = loader.get().stream().map(FeedResponseCache::withoutVote).toList();
+            return new Listing(list, op -> list.stream().map(op).toList());
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlMs", ttlMs);
+        if (enabled) {
+            CacheStats cacheStats = responses.stats();
+            stats.put("size", responses.estimatedSize());
+            stats.put("hits", cacheStats.hitCount());
+            stats.put("misses", cacheStats.missCount());
+            stats.put("hitRate", cacheStats.hitRate());
+            stats.put("evictions", cacheStats.evictionCount());
+        }
+        return stats;
+    }
+
+    private ResponseEntity<byte[]> respond(String key, HttpServletRequest request, Supplier<Listing> loader) {
+        CachedResponse cached = enabled
+                ? responses.get(key, k -> toCachedResponse(loader.get()))
+                : toCachedResponse(loader.get());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setVary(List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT_ENCODING));
+
+        if (userService.getCurrentUser().isPresent()) {
+            Map<String, String> userVotes = voteService.getUserVotes(
+                    cached.listing().posts().stream().map(PostSummaryDTO::getId).toList(), Vote.TargetType.POST);
+            Object personalized = cached.listing().view().apply(
+                    post -> post.toBuilder().userVote(userVotes.get(post.getId())).build());
+            headers.setCacheControl("private, no-cache");
+            return new ResponseEntity<>(serialize(personalized), headers, HttpStatus.OK);
+        }
+
+        headers.setETag(cached.etag());
+        headers.setCacheControl("public, max-age=" + Math.max(1, ttlMs / 1000));
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(cached.gzip(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(cached.json(), headers, HttpStatus.OK);
+    }
+
+    private CachedResponse toCachedResponse(Listing listing) {
+        byte[] json = serialize(listing.view().apply(UnaryOperator.identity()));
+        byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+        return new CachedResponse(listing, json, gzip, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response: " + e.getMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PostSummaryDTO withoutVote(PostSummaryDTO post) {
+        return post.getUserVote() == null ? post : post.toBuilder().userVote(null).build();
+    }
+
+    // The cached posts and a way to rebuild the response body around a per-post transform
+    private record Listing(List<PostSummaryDTO> posts,
+                           Function<Function<PostSummaryDTO, PostSummaryDTO>, Object> view) {
+    }
+
+    private record CachedResponse(Listing listing, byte[] json, byte[] gzip, String etag) {
+    }
+}
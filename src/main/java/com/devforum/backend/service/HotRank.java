@@ -0,0 +1,89 @@
+package com.devforum.backend.service;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Time-invariant hot ranking: the order of magnitude of a post's score plus its creation time
+ * in 12.5 hour units. Newer posts outrank older ones by construction, so a post's rank only
+ * changes when its votes or comments do and the hot feed can be served from an index on it.
+ * Score changes are applied with pipeline updates that recompute the rank in the same write.
+ */
+public final class HotRank {
+
+    public static final String FIELD = "hotRank";
+
+    // Seconds of age that cost as much rank as a tenfold score
+    private static final long DECAY_SECONDS = 45000;
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final double COMMENT_WEIGHT = 0.5;
+
+    private HotRank() {
+    }
+
+    public static double compute(int upvotes, int downvotes, int commentCount, LocalDateTime createdAt) {
+        double score = upvotes - downvotes + commentCount * COMMENT_WEIGHT;
+        double order = Math.log10(Math.max(Math.abs(score), 1));
+        return Math.signum(score) * order + (toMillis(createdAt) - EPOCH_MILLIS) / (DECAY_SECONDS * 1000.0);
+    }
+
+    /**
+     * Recomputes the rank from the counters currently stored on each matched post.
+     */
+    public static AggregationUpdate refresh() {
+        return AggregationUpdate.from(List.of(rankStage()));
+    }
+
+    /**
+     * Applies counter deltas and recomputes the rank atomically; a null activity time leaves
+     * lastActivityAt untouched.
+     */
+    public static AggregationUpdate increment(int upvoteDelta, int downvoteDelta, int commentDelta,
+                                             LocalDateTime lastActivityAt) {
+        Document counters = new Document()
+                .append("upvotes", add("upvotes", upvoteDelta))
+                .append("downvotes", add("downvotes", downvoteDelta))
+                .append("commentCount", add("commentCount", commentDelta));
+        if (lastActivityAt != null) {
+            // Pipeline stages bypass entity conversion, so store the date the way the mapper would
+            counters.append("lastActivityAt", Date.from(lastActivityAt.atZone(ZoneId.systemDefault()).toInstant()));
+        }
+        AggregationOperation counterStage = context -> new Document("$set", counters);
+        return AggregationUpdate.from(List.of(counterStage, rankStage()));
+    }
+
+    private static AggregationOperation rankStage() {
+        Document score = new Document("$add", List.of(
+                new Document("$subtract", List.of(orZero("upvotes"), orZero("downvotes"))),
+                new Document("$multiply", List.of(orZero("commentCount"), COMMENT_WEIGHT))));
+        Document sign = new Document("$cond", List.of(
+                new Document("$gt", List.of("$$score", 0)), 1,
+                new Document("$cond", List.of(new Document("$lt", List.of("$$score", 0)), -1, 0))));
+        Document order = new Document("$log10", new Document("$max", List.of(new Document("$abs", "$$score"), 1)));
+        Document age = new Document("$divide", List.of(
+                new Document("$subtract", List.of(new Document("$toLong", "$createdAt"), EPOCH_MILLIS)),
+                DECAY_SECONDS * 1000.0));
+
+        Document rank = new Document("$let", new Document("vars", new Document("score", score))
+                .append("in", new Document("$add", List.of(new Document("$multiply", List.of(sign, order)), age))));
+        return context -> new Document("$set", new Document(FIELD, rank));
+    }
+
+    private static Document add(String field, int delta) {
+        return new Document("$add", List.of(orZero(field), delta));
+    }
+
+    private static Document orZero(String field) {
+        return new Document("$ifNull", List.of("$" + field, 0));
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,124 @@
+package com.devforum.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (cursor) pagination. Instead of skipping rows, each page continues strictly after the
+ * sort key of the previous page's last row, so with an index on the sort every page costs the
+ * same as the first and no count is needed. The cursor is an opaque base64url token holding
+ * that row's sort values and _id, which always ends the sort as a unique tie-breaker.
+ */
+@Service
+@RequiredArgsConstructor
+public class KeysetPager {
+
+    private final MongoTemplate mongoTemplate;
+
+    public record Slice<T>(List<T> content, String nextCursor) {
+    }
+
+    public <T> Slice<T> find(Criteria filter, Sort sort, String cursor, int size, Class<T> entityClass,
+                             String... excludedFields) {
+        List<Sort.Order> orders = withIdTieBreaker(sort);
+
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = new Criteria().andOperator(filter, after(orders, decode(cursor, orders)));
+        }
+
+        // One extra row tells whether there is a next page without counting
+        Query query = Query.query(criteria).with(Sort.by(orders)).limit(size + 1);
+        for (String field : excludedFields) {
+            query.fields().exclude(field);
+        }
+        List<T> rows = mongoTemplate.find(query, entityClass);
+        if (rows.size() <= size) {
+            return new Slice<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        return new Slice<>(List.copyOf(content), encode(orders, content.get(size - 1)));
+    }
+
+    /**
+     * The cursor that continues after {@code lastRow} under {@code sort}, for callers that fetched
+     * the rows some other way (for example a grouped aggregation) but hand out keyset cursors.
+     */
+    public String cursorAfter(Sort sort, Object lastRow) {
+        return encode(withIdTieBreaker(sort), lastRow);
+    }
+
+    private static List<Sort.Order> withIdTieBreaker(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (!"_id".equals(order.getProperty()) && !"id".equals(order.getProperty())) {
+                orders.add(order);
+            }
+        }
+        Sort.Direction idDirection = orders.isEmpty() ? Sort.Direction.DESC : orders.get(orders.size() - 1).getDirection();
+        orders.add(new Sort.Order(idDirection, "_id"));
+        return orders;
+    }
+
+    // (k1 > v1) or (k1 = v1 and k2 > v2) or ..., with < for descending keys
+    private static Criteria after(List<Sort.Order> orders, List<?> values) {
+        List<Criteria> branches = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Criteria branch = null;
+            for (int j = 0; j < i; j++) {
+                String field = orders.get(j).getProperty();
+                branch = branch == null ? Criteria.where(field).is(values.get(j)) : branch.and(field).is(values.get(j));
+            }
+            Sort.Order order = orders.get(i);
+            branch = branch == null ? Criteria.where(order.getProperty()) : branch.and(order.getProperty());
+            branches.add(order.isAscending() ? branch.gt(values.get(i)) : branch.lt(values.get(i)));
+        }
+        return new Criteria().orOperator(branches);
+    }
+
+    private String encode(List<Sort.Order> orders, Object lastRow) {
+        // Write the entity the way it is stored, so dates and ids compare like the indexed values
+        Document stored = new Document();
+        mongoTemplate.getConverter().write(lastRow, stored);
+
+        List<Object> values = new ArrayList<>(orders.size());
+        orders.forEach(order -> values.add(stored.get(order.getProperty())));
+        Document cursor = new Document("s", signature(orders)).append("v", values);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<?> decode(String token, List<Sort.Order> orders) {
+        Document cursor;
+        try {
+            cursor = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+
+        List<?> values = cursor.get("v", List.class);
+        if (!signature(orders).equals(cursor.getString("s")) || values == null || values.size() != orders.size()) {
+            throw new RuntimeException("Cursor does not match the requested sort");
+        }
+        return values;
+    }
+
+    private static String signature(List<Sort.Order> orders) {
+        StringBuilder signature = new StringBuilder();
+        for (Sort.Order order : orders) {
+            signature.append(order.getProperty()).append(order.isAscending() ? '+' : '-');
+        }
+        return signature.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.devforum.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how much a listing pays for its total. EXACT keeps the repository's Page and its
+ * countDocuments, NONE runs the Slice variant of the same query (one extra row, no count), and
+ * APPROXIMATE runs the Slice and attaches a total that is counted at most once per filter per
+ * TTL. Totals over a whole collection come from estimatedDocumentCount, which reads collection
+ * metadata instead of scanning.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PageCounts {
+
+    public enum Mode {
+        EXACT, APPROXIMATE, NONE;
+
+        public static Mode of(String value) {
+            if (value == null || value.isBlank()) {
+                return EXACT;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown count mode: " + value);
+            }
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.counts.approximate-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.counts.max-cached-filters:5000}")
+    private int maxCachedFilters;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder skippedCounts = new LongAdder();
+
+    public <T> Slice<T> fetch(Mode mode, Pageable pageable,
+                              Function<Pageable, Page<T>> paged,
+                              Function<Pageable, Slice<T>> sliced,
+                              LongSupplier approximateTotal) {
+        if (mode == Mode.EXACT) {
+            return paged.apply(pageable);
+        }
+
+        Slice<T> slice = sliced.apply(pageable);
+        skippedCounts.increment();
+        if (mode == Mode.NONE) {
+            return slice;
+        }
+
+        // A stale total must never contradict what this page has just seen
+        long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), pageable, Math.max(approximateTotal.getAsLong(), seen));
+    }
+
+    public long count(String filterKey, Query query, Class<?> entityClass) {
+        return cached("count:" + filterKey, () -> mongoTemplate.count(query, entityClass));
+    }
+
+    public long estimatedCount(Class<?> entityClass) {
+        return cached("estimated:" + mongoTemplate.getCollectionName(entityClass),
+                () -> mongoTemplate.estimatedCount(entityClass));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttlMs", ttlMs);
+        stats.put("cachedFilters", counts.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("skippedCounts", skippedCounts.sum());
+        return stats;
+    }
+
+    private long cached(String key, LongSupplier loader) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            hits.increment();
+            return cached.value();
+        }
+
+        // Concurrent misses may each count once; that is cheaper than holding a lock across a query
+        misses.increment();
+        long value = loader.getAsLong();
+        if (counts.size() >= maxCachedFilters) {
+            counts.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (counts.size() >= maxCachedFilters) {
+                log.debug("Approximate count cache full, clearing {} filters", counts.size());
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(value, now + ttlMs));
+        return value;
+    }
+
+    private record CachedCount(long value, long expiresAt) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.util.BodyCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compresses the bodies of existing posts with {@link PostBodyCompressor}'s settings. Posts are
+ * scanned in _id order in bounded batches and each write is conditional on the post's
+ * updatedAt, so an edit made while the batch was being compressed wins. Collection sizes are
+ * captured before and after, together with the compression ratio and the deflate and inflate
+ * cost measured on the migrated bodies.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostBodyCompressionMigration {
+
+    private static final String POSTS = "posts";
+    private static final List<String> COLLECTIONS = List.of("posts", "comments", "users", "votes", "tags");
+
+    private final MongoTemplate mongoTemplate;
+    private final PostBodyCompressor compressor;
+
+    @Value("${app.migrations.post-body-compression.enabled:false}")
+    private boolean runOnStartup;
+
+    @Value("${app.migrations.post-body-compression.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.migrations.post-body-compression.benchmark-samples:200}")
+    private int benchmarkSamples;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder deflateNanos = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile ObjectId lastScannedId;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+    private volatile Map<String, Object> before;
+    private volatile Map<String, Object> after;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (runOnStartup && compressor.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the migration in the background; returns false if a run is already in progress.
+     */
+    public boolean start() {
+        if (!compressor.isEnabled()) {
+            throw new RuntimeException("Post body compression is disabled");
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "post-body-compression-migration");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        long raw = rawBytes.sum();
+        long stored = storedBytes.sum();
+        long count = migrated.sum();
+        status.put("running", running.get());
+        status.put("scanned", scanned.sum());
+        status.put("migrated", count);
+        status.put("rawBytes", raw);
+        status.put("storedBytes", stored);
+        status.put("compressionRatio", stored > 0 ? (double) raw / stored : null);
+        status.put("avgDeflateMicros", count > 0 ? deflateNanos.sum() / 1000.0 / count : null);
+        status.put("batches", batches.sum());
+        status.put("lastScannedId", lastScannedId != null ? lastScannedId.toHexString() : null);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        status.put("before", before);
+        status.put("after", after);
+        return status;
+    }
+
+    /**
+     * Per-collection sizes from collStats: logical data size, on-disk storage size (after the
+     * storage engine's own block compression) and index size.
+     */
+    public Map<String, Object> getStorageReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("capturedAt", LocalDateTime.now());
+        for (String collection : COLLECTIONS) {
+            try {
+                Document collStats = mongoTemplate.executeCommand(new Document("collStats", collection));
+                Map<String, Object> sizes = new LinkedHashMap<>();
+                sizes.put("count", collStats.get("count"));
+                sizes.put("sizeBytes", collStats.get("size"));
+                sizes.put("avgObjSizeBytes", collStats.get("avgObjSize"));
+                sizes.put("storageSizeBytes", collStats.get("storageSize"));
+                sizes.put("totalIndexSizeBytes", collStats.get("totalIndexSize"));
+                report.put(collection, sizes);
+            } catch (RuntimeException e) {
+                report.put(collection, Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        return report;
+    }
+
+    private void run() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        lastScannedId = null;
+        try {
+            before = getStorageReport();
+            log.info("Starting post body compression migration");
+
+            while (migrateBatch() > 0) {
+                batches.increment();
+            }
+
+            after = getStorageReport();
+            after.put("avgInflateMicros", sampleInflateMicros());
+            finishedAt = LocalDateTime.now();
+            log.info("Post body compression finished: {} of {} posts compressed, {} -> {} bytes",
+                    migrated.sum(), scanned.sum(), rawBytes.sum(), storedBytes.sum());
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Post body compression stopped after {}: {}", lastScannedId, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int migrateBatch() {
+        Query query = Query.query(Criteria.where("body").exists(true));
+        if (lastScannedId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastScannedId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("_id").include("body").include("excerpt").include("updatedAt");
+
+        List<Document> posts = mongoTemplate.find(query, Document.class, POSTS);
+        if (posts.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, POSTS);
+        int pending = 0;
+        for (Document post : posts) {
+            String body = post.getString("body");
+            long started = System.nanoTime();
+            byte[] deflated = body != null ? compressor.compress(body) : null;
+            if (deflated == null) {
+                continue;
+            }
+            deflateNanos.add(System.nanoTime() - started);
+            rawBytes.add(body.getBytes(StandardCharsets.UTF_8).length);
+            storedBytes.add(deflated.length);
+
+            Update update = new Update().unset("body").set(Post.COMPRESSED_BODY, new Binary(deflated));
+            if (post.get("excerpt") == null) {
+                // The excerpt backfill reads the plain body, which is about to go
+                update.set("excerpt", Post.excerptOf(body));
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(post.get("_id"))
+                    .and("updatedAt").is(post.get("updatedAt"))), update);
+            pending++;
+        }
+        if (pending > 0) {
+            migrated.add(bulk.execute().getModifiedCount());
+        }
+
+        scanned.add(posts.size());
+        lastScannedId = posts.get(posts.size() - 1).getObjectId("_id");
+        return posts.size();
+    }
+
+    private Double sampleInflateMicros() {
+        List<Document> samples = mongoTemplate.aggregate(
+                Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(Post.COMPRESSED_BODY).exists(true)),
+                        Aggregation.sample(benchmarkSamples),
+                        Aggregation.project(Post.COMPRESSED_BODY)),
+                POSTS, Document.class).getMappedResults();
+        if (samples.isEmpty()) {
+            return null;
+        }
+
+        long totalNanos = 0;
+        for (Document sample : samples) {
+            byte[] compressed = sample.get(Post.COMPRESSED_BODY, Binary.class).getData();
+            long started = System.nanoTime();
+            BodyCodec.inflate(compressed);
+            totalNanos += System.nanoTime() - started;
+        }
+        return totalNanos / 1000.0 / samples.size();
+    }
+}
@@ -0,0 +1,139 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.util.BodyCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional compressed storage for large post bodies. On save, a body over the threshold is
+ * deflated into {@link Post#COMPRESSED_BODY} and the plain {@code body} field is left out of the
+ * stored document. It is inflated back into {@code body} as the entity is read, before the
+ * instance can reach {@link PostCache} or another thread, and list projections exclude both
+ * fields so feeds never touch it. Posts resolved through a {@code @DBRef} skip entity callbacks
+ * and keep only the compressed copy; nothing reads their body.
+ * <p>
+ * Post search matches the plain {@code body} field (text index and regex), so a compressed post
+ * can no longer be found by its body. Compression therefore stays off, with a startup warning,
+ * unless {@code allow-unsearchable-bodies} accepts that loss as well.
+ */
+@Slf4j
+@Service
+public class PostBodyCompressor implements BeforeSaveCallback<Post>, AfterConvertCallback<Post> {
+
+    @Value("${app.posts.body-compression.enabled:false}")
+    private boolean enabled;
+
+    // Compressing takes bodies out of body search; off unless that is explicitly accepted
+    @Value("${app.posts.body-compression.allow-unsearchable-bodies:false}")
+    private boolean allowUnsearchableBodies;
+
+    @Value("${app.posts.body-compression.min-bytes:4096}")
+    private int minBytes;
+
+    @Value("${app.posts.body-compression.level:6}")
+    private int level;
+
+    // Keep the plain body unless compression saves at least this fraction of its bytes
+    @Value("${app.posts.body-compression.min-savings:0.2}")
+    private double minSavings;
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder inflated = new LongAdder();
+
+    @Override
+    public Post onBeforeSave(Post post, Document document, String collection) {
+        if (document.get("body") instanceof String body) {
+            // The plain body is current; drop any compressed copy still on the entity
+            document.remove(Post.COMPRESSED_BODY);
+            byte[] deflated = isEnabled() ? compress(body) : null;
+            if (deflated != null) {
+                document.remove("body");
+                document.put(Post.COMPRESSED_BODY, new Binary(deflated));
+            }
+        }
+        return post;
+    }
+
+    @Override
+    public Post onAfterConvert(Post post, Document document, String collection) {
+        if (post.getBody() == null && post.getCompressedBody() != null) {
+            post.setBody(BodyCodec.inflate(post.getCompressedBody()));
+            post.setCompressedBody(null);
+            inflated.increment();
+        }
+        return post;
+    }
+
+    /**
+     * Returns the deflated body, or null when it is below the threshold or does not compress
+     * well enough to be worth the CPU on every read.
+     */
+    public byte[] compress(String body) {
+        int size = body.getBytes(StandardCharsets.UTF_8).length;
+        if (size < minBytes) {
+            return null;
+        }
+
+        long started = System.nanoTime();
+        byte[] deflated = BodyCodec.deflate(body, level);
+        compressNanos.add(System.nanoTime() - started);
+        if (deflated.length > size * (1 - minSavings)) {
+            skipped.increment();
+            return null;
+        }
+        compressed.increment();
+        rawBytes.add(size);
+        storedBytes.add(deflated.length);
+        return deflated;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnIfRefused() {
+        if (enabled && !allowUnsearchableBodies) {
+            log.warn("Post body compression is configured but stays off: compressed bodies would drop out of "
+                    + "body search. Set app.posts.body-compression.allow-unsearchable-bodies=true to accept that");
+        } else if (isEnabled()) {
+            log.warn("Post body compression is on; compressed posts are found by title and tags only");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && allowUnsearchableBodies;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = compressed.sum();
+        long stored = storedBytes.sum();
+        stats.put("enabled", isEnabled());
+        stats.put("refusedForSearch", enabled && !allowUnsearchableBodies);
+        stats.put("minBytes", minBytes);
+        stats.put("level", level);
+        stats.put("compressed", count);
+        stats.put("skippedIncompressible", skipped.sum());
+        stats.put("inflatedOnRead", inflated.sum());
+        stats.put("rawBytes", rawBytes.sum());
+        stats.put("storedBytes", stored);
+        stats.put("compressionRatio", stored > 0 ? (double) rawBytes.sum() / stored : null);
+        long attempts = count + skipped.sum();
+        stats.put("avgCompressMicros", attempts > 0 ? compressNanos.sum() / 1000.0 / attempts : null);
+        return stats;
+    }
+}
@@ -0,0 +1,124 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of post entities for the detail view and of the pinned list.
+ * Caffeine's W-TinyLFU eviction keeps frequently read posts over one-off reads, and a short
+ * TTL bounds staleness for fields that are not invalidated (view counts, author profiles).
+ * Writers invalidate explicitly: post edits, deletes, pins and locks, vote and comment counter
+ * changes, and reconciler corrections. Cached posts are shared and must not be modified.
+ */
+@Service
+public class PostCache {
+
+    private static final String PINNED = "pinned";
+
+    @Value("${app.posts.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.posts.cache.max-posts:10000}")
+    private long maxPosts;
+
+    @Value("${app.posts.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.posts.cache.pinned-ttl-ms:300000}")
+    private long pinnedTtlMs;
+
+    private Cache<String, Post> posts;
+    private Cache<String, List<Post>> pinnedPosts;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        posts = Caffeine.newBuilder()
+                .maximumSize(maxPosts)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        pinnedPosts = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofMillis(pinnedTtlMs))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Post> getPost(String postId, Supplier<Optional<Post>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        // Missing posts are not cached, so a new post is visible as soon as it is saved
+        return Optional.ofNullable(posts.get(postId, id -> loader.get().orElse(null)));
+    }
+
+    public List<Post> getPinnedPosts(Supplier<List<Post>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return pinnedPosts.get(PINNED, key -> List.copyOf(loader.get()));
+    }
+
+    public void evict(String postId) {
+        if (!enabled || postId == null) {
+            return;
+        }
+        posts.invalidate(postId);
+        invalidations.increment();
+
+        // The pinned list carries the same counters, so drop it when one of its posts changes
+        List<Post> pinned = pinnedPosts.getIfPresent(PINNED);
+        if (pinned != null && pinned.stream().anyMatch(post -> postId.equals(post.getId()))) {
+            evictPinned();
+        }
+    }
+
+    public void evictAll(Collection<?> postIds) {
+        postIds.forEach(postId -> evict(String.valueOf(postId)));
+    }
+
+    public void evictPinned() {
+        if (enabled) {
+            pinnedPosts.invalidate(PINNED);
+            invalidations.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("invalidations", invalidations.sum());
+        if (enabled) {
+            stats.put("posts", statsOf(posts));
+            stats.put("pinned", statsOf(pinnedPosts));
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> statsOf(Cache<?, ?> cache) {
+        CacheStats cacheStats = cache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        return stats;
+    }
+}
@@ -1,7 +1,9 @@
 package com.devforum.backend.service;
 
 import com.devforum.backend.dto.CreatePostRequest;
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.PostDTO;
+import com.devforum.backend.dto.PostSummaryDTO;
 import com.devforum.backend.dto.UpdatePostRequest;
 import com.devforum.backend.entity.Post;
 import com.devforum.backend.entity.User;
@@ -9,13 +11,27 @@ import com.devforum.backend.entity.Vote;
 import com.devforum.backend.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.Binary;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -25,15 +41,26 @@ public class PostService {
     private final PostRepository postRepository;
     private final UserService userService;
     private final VoteService voteService;
+    private final FeedRanking feedRanking;
+    private final ViewCounter viewCounter;
+    private final KeysetPager keysetPager;
+    private final PageCounts pageCounts;
+    private final PostCache postCache;
+    private final TagIndex tagIndex;
+    private final TagService tagService;
+    private final MongoTemplate mongoTemplate;
+    private final PostBodyCompressor postBodyCompressor;
     
     @Transactional
     public PostDTO createPost(CreatePostRequest request) {
         User currentUser = userService.getCurrentUser()
                 .orElseThrow(() -> new RuntimeException("User not authenticated"));
         
+        LocalDateTime now = LocalDateTime.now();
         Post post = Post.builder()
                 .title(request.getTitle())
                 .body(request.getBody())
+                .excerpt(Post.excerptOf(request.getBody()))
                 .author(currentUser)
                 .tags(request.getTags())
                 .upvotes(0)
@@ -43,22 +70,29 @@ public class PostService {
                 .pinned(false)
                 .locked(false)
                 .deleted(false)
-                .createdAt(LocalDateTime.now())
-                .lastActivityAt(LocalDateTime.now())
+                .createdAt(now)
+                .lastActivityAt(now)
+                .hotRank(HotRank.compute(0, 0, 0, now))
                 .build();
         
         Post savedPost = postRepository.save(post);
+        feedRanking.onPostCreated(savedPost);
+        tagIndex.onPostSaved(savedPost);
+        tagService.applyTagChange(List.of(), savedPost.getTags());
         log.info("Post created: {} by {}", savedPost.getTitle(), currentUser.getUsername());
         
         return PostDTO.fromPost(savedPost);
     }
     
-    public PostDTO getPost(String postId) {
-        Post post = postRepository.findByIdAndDeletedFalse(postId)
+    public PostDTO getPost(String postId, String clientAddress) {
+        Post post = postCache.getPost(postId, () -> postRepository.findByIdAndDeletedFalse(postId))
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
-        // Increment view count
-        incrementViewCount(postId);
+        // Buffer the view; signed-in viewers are told apart by account, guests by address
+        String viewerKey = userService.getCurrentUser()
+                .map(user -> "user:" + user.getId())
+                .orElse(clientAddress != null ? "ip:" + clientAddress : null);
+        viewCounter.record(postId, viewerKey);
         
         // Get user's vote if authenticated
         String userVote = voteService.getUserVote(postId, Vote.TargetType.POST);
@@ -66,20 +100,18 @@ public class PostService {
         return PostDTO.fromPostWithUserVote(post, userVote);
     }
     
-    public Page<PostDTO> getPosts(Pageable pageable, String sortBy) {
+    public Page<PostSummaryDTO> getPosts(Pageable pageable, String sortBy) {
         Page<Post> posts;
         
         switch (sortBy != null ? sortBy.toLowerCase() : "recent") {
             case "hot":
-                posts = postRepository.findHotPosts(
-                    LocalDateTime.now().minusDays(7), 1, pageable);
+                posts = rankedPosts(FeedRanking.Feed.HOT, null, pageable);
                 break;
             case "top":
-                posts = postRepository.findTopPosts(pageable);
+                posts = rankedPosts(FeedRanking.Feed.TOP, null, pageable);
                 break;
             case "trending":
-                posts = postRepository.findTrendingPosts(
-                    LocalDateTime.now().minusDays(1), pageable);
+                posts = rankedPosts(FeedRanking.Feed.TRENDING, null, pageable);
                 break;
             case "recent":
             default:
@@ -87,41 +119,159 @@ public class PostService {
                 break;
         }
         
-        return posts.map(post -> {
-            String userVote = voteService.getUserVote(post.getId(), Vote.TargetType.POST);
-            return PostDTO.fromPostWithUserVote(post, userVote);
-        });
+        return toPostSummaries(posts);
+    }
+    
+    public Slice<PostSummaryDTO> getPosts(Pageable pageable, String sortBy, PageCounts.Mode countMode) {
+        FeedRanking.Feed feed = rankedFeed(sortBy);
+        if (feed == null) {
+            return pageCounts.fetch(countMode, pageable,
+                p -> getPosts(p, sortBy),
+                p -> toPostSummaries(postRepository.findSliceByDeletedFalse(p)),
+                this::approximateLivePostCount);
+        }
+        return pageCounts.fetch(countMode, pageable,
+            p -> getPosts(p, sortBy),
+            p -> toPostSummaries(rankedSlice(feed, null, p)),
+            () -> approximateFeedCount(feed, null));
+    }
+    
+    public Page<PostSummaryDTO> getPostsByAuthor(String username, Pageable pageable) {
+        User author = userService.getUserByUsername(username);
+        Page<Post> posts = postRepository.findByAuthorAndDeletedFalse(author, pageable);
+        return toPostSummaries(posts);
     }
     
-    public Page<PostDTO> getPostsByAuthor(String username, Pageable pageable) {
-        User author = userService.getUserProfile(username) != null ? 
-            userService.getCurrentUser().orElse(null) : null;
+    public Slice<PostSummaryDTO> getPostsByAuthor(String username, Pageable pageable, PageCounts.Mode countMode) {
+        User author = userService.getUserByUsername(username);
+        return pageCounts.fetch(countMode, pageable,
+            p -> toPostSummaries(postRepository.findByAuthorAndDeletedFalse(author, p)),
+            p -> toPostSummaries(postRepository.findSliceByAuthorAndDeletedFalse(author, p)),
+            () -> pageCounts.count("posts:author:" + author.getId(),
+                Query.query(Criteria.where("author").is(author).and("deleted").is(false)), Post.class));
+    }
+    
+    public Page<PostSummaryDTO> getPostsByTag(String tag, Pageable pageable, String sortBy) {
+        Page<Post> posts;
         
-        if (author == null) {
-            throw new RuntimeException("User not found: " + username);
+        switch (sortBy != null ? sortBy.toLowerCase() : "recent") {
+            case "hot":
+                posts = rankedPosts(FeedRanking.Feed.HOT, tag, pageable);
+                break;
+            case "top":
+                posts = rankedPosts(FeedRanking.Feed.TOP, tag, pageable);
+                break;
+            case "trending":
+                posts = rankedPosts(FeedRanking.Feed.TRENDING, tag, pageable);
+                break;
+            case "recent":
+            default:
+                posts = postRepository.findByTagAndDeletedFalse(tag, pageable);
+                break;
         }
         
-        Page<Post> posts = postRepository.findByAuthorAndDeletedFalse(author, pageable);
-        return posts.map(post -> {
-            String userVote = voteService.getUserVote(post.getId(), Vote.TargetType.POST);
-            return PostDTO.fromPostWithUserVote(post, userVote);
-        });
+        return toPostSummaries(posts);
+    }
+    
+    public Slice<PostSummaryDTO> getPostsByTag(String tag, Pageable pageable, String sortBy, PageCounts.Mode countMode) {
+        FeedRanking.Feed feed = rankedFeed(sortBy);
+        return pageCounts.fetch(countMode, pageable,
+            p -> getPostsByTag(tag, p, sortBy),
+            p -> toPostSummaries(feed != null
+                ? rankedSlice(feed, tag, p)
+                : postRepository.findSliceByTagAndDeletedFalse(tag, p)),
+            () -> approximateFeedCount(feed, tag));
+    }
+    
+    /**
+     * Newest posts carrying every tag in {@code all}, at least one in {@code any} and none in
+     * {@code none}. Answered from the in-memory tag index, or from Mongo until it is built.
+     */
+    public Page<PostSummaryDTO> getPostsByTags(List<String> all, List<String> any, List<String> none,
+                                               Pageable pageable) {
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new RuntimeException("At least one of 'all' or 'any' tags is required");
+        }
+        
+        Optional<TagIndex.Match> match = tagIndex.query(
+            all, any, none, (int) pageable.getOffset(), pageable.getPageSize());
+        if (match.isPresent()) {
+            List<Post> posts = findAllInOrder(match.get().postIds());
+            return toPostSummaries(new PageImpl<>(posts, pageable, match.get().total()));
+        }
+        
+        Criteria criteria = Criteria.where("deleted").is(false);
+        if (!all.isEmpty() || !none.isEmpty()) {
+            Criteria tags = criteria.and("tags");
+            if (!all.isEmpty()) {
+                tags.all(all);
+            }
+            if (!none.isEmpty()) {
+                tags.nin(none);
+            }
+        }
+        if (!any.isEmpty()) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("tags").in(any));
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "_id")).with(pageable);
+        query.fields().exclude("body").exclude(Post.COMPRESSED_BODY);
+        List<Post> posts = mongoTemplate.find(query, Post.class);
+        long total = mongoTemplate.count(Query.query(criteria), Post.class);
+        return toPostSummaries(new PageImpl<>(posts, pageable, total));
+    }
+    
+    public CursorPage<PostSummaryDTO> getPostsByCursor(String sortBy, String cursor, int size) {
+        return postsByCursor(Criteria.where("deleted").is(false), sortBy, cursor, size);
     }
     
-    public Page<PostDTO> getPostsByTag(String tag, Pageable pageable) {
-        Page<Post> posts = postRepository.findByTagAndDeletedFalse(tag, pageable);
-        return posts.map(post -> {
-            String userVote = voteService.getUserVote(post.getId(), Vote.TargetType.POST);
-            return PostDTO.fromPostWithUserVote(post, userVote);
-        });
+    public CursorPage<PostSummaryDTO> getPostsByTagCursor(String tag, String sortBy, String cursor, int size) {
+        return postsByCursor(Criteria.where("deleted").is(false).and("tags").is(tag), sortBy, cursor, size);
+    }
+    
+    public CursorPage<PostSummaryDTO> getPostsByAuthorCursor(String username, String cursor, int size) {
+        User author = userService.getUserByUsername(username);
+        return postsByCursor(Criteria.where("deleted").is(false).and("author").is(author), "recent", cursor, size);
+    }
+    
+    private CursorPage<PostSummaryDTO> postsByCursor(Criteria filter, String sortBy, String cursor, int size) {
+        Sort sort;
+        switch (sortBy != null ? sortBy.toLowerCase() : "recent") {
+            case "hot":
+                sort = FeedRanking.sort(FeedRanking.Feed.HOT);
+                break;
+            case "top":
+                sort = FeedRanking.sort(FeedRanking.Feed.TOP);
+                break;
+            case "trending":
+                sort = FeedRanking.sort(FeedRanking.Feed.TRENDING);
+                filter.and("lastActivityAt").gte(LocalDateTime.now().minus(FeedRanking.TRENDING_WINDOW));
+                break;
+            case "recent":
+            default:
+                sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id"));
+                break;
+        }
+        
+        KeysetPager.Slice<Post> slice = keysetPager.find(filter, sort, cursor, size, Post.class,
+                "body", Post.COMPRESSED_BODY);
+        return CursorPage.of(toPostSummaries(slice.content()), slice.nextCursor());
     }
     
-    public Page<PostDTO> searchPosts(String query, Pageable pageable) {
+    public Page<PostSummaryDTO> searchPosts(String query, Pageable pageable) {
         Page<Post> posts = postRepository.advancedSearch(query, pageable);
-        return posts.map(post -> {
-            String userVote = voteService.getUserVote(post.getId(), Vote.TargetType.POST);
-            return PostDTO.fromPostWithUserVote(post, userVote);
-        });
+        return toPostSummaries(posts);
+    }
+    
+    public Slice<PostSummaryDTO> searchPosts(String query, Pageable pageable, PageCounts.Mode countMode) {
+        return pageCounts.fetch(countMode, pageable,
+            p -> searchPosts(query, p),
+            p -> toPostSummaries(postRepository.advancedSearchSlice(query, p)),
+            () -> pageCounts.count("posts:search:" + query, Query.query(new Criteria().andOperator(
+                Criteria.where("deleted").is(false),
+                new Criteria().orOperator(
+                    Criteria.where("title").regex(query, "i"),
+                    Criteria.where("body").regex(query, "i"),
+                    Criteria.where("tags").in(query)))), Post.class));
     }
     
     @Transactional
@@ -139,19 +289,23 @@ public class PostService {
             throw new RuntimeException("Access denied: You can only edit your own posts");
         }
         
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
         if (request.getTitle() != null) {
-            post.setTitle(request.getTitle());
+            update.set("title", request.getTitle());
         }
         if (request.getBody() != null) {
-            post.setBody(request.getBody());
+            setBody(update, request.getBody());
         }
+        List<String> previousTags = post.getTags() != null ? List.copyOf(post.getTags()) : List.of();
         if (request.getTags() != null) {
-            post.setTags(request.getTags());
+            update.set("tags", request.getTags());
         }
         
-        post.setUpdatedAt(LocalDateTime.now());
-        
-        Post updatedPost = postRepository.save(post);
+        Post updatedPost = setFields(postId, update);
+        postCache.evict(postId);
+        feedRanking.onPostUpdated(updatedPost);
+        tagIndex.onPostSaved(updatedPost);
+        tagService.applyTagChange(previousTags, updatedPost.getTags());
         log.info("Post updated: {} by {}", updatedPost.getTitle(), currentUser.getUsername());
         
         String userVote = voteService.getUserVote(postId, Vote.TargetType.POST);
@@ -173,10 +327,11 @@ public class PostService {
             throw new RuntimeException("Access denied: You can only delete your own posts");
         }
         
-        post.setDeleted(true);
-        post.setUpdatedAt(LocalDateTime.now());
-        
-        postRepository.save(post);
+        setFields(postId, new Update().set("deleted", true).set("updatedAt", LocalDateTime.now()));
+        postCache.evict(postId);
+        feedRanking.onPostDeleted(postId);
+        tagIndex.onPostDeleted(postId);
+        tagService.applyTagChange(post.getTags(), List.of());
         log.info("Post deleted: {} by {}", post.getTitle(), currentUser.getUsername());
     }
     
@@ -193,10 +348,12 @@ public class PostService {
         Post post = postRepository.findByIdAndDeletedFalse(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
-        post.setPinned(!post.getPinned()); // Toggle pin status
-        post.setUpdatedAt(LocalDateTime.now());
-        
-        Post updatedPost = postRepository.save(post);
+        // Toggle pin status
+        Post updatedPost = setFields(postId, new Update()
+                .set("pinned", !Boolean.TRUE.equals(post.getPinned()))
+                .set("updatedAt", LocalDateTime.now()));
+        postCache.evict(postId);
+        postCache.evictPinned();
         log.info("Post pin status changed: {} -> {} by {}", 
             updatedPost.getTitle(), updatedPost.getPinned(), currentUser.getUsername());
         
@@ -217,10 +374,11 @@ public class PostService {
         Post post = postRepository.findByIdAndDeletedFalse(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
-        post.setLocked(!post.getLocked()); // Toggle lock status
-        post.setUpdatedAt(LocalDateTime.now());
-        
-        Post updatedPost = postRepository.save(post);
+        // Toggle lock status
+        Post updatedPost = setFields(postId, new Update()
+                .set("locked", !Boolean.TRUE.equals(post.getLocked()))
+                .set("updatedAt", LocalDateTime.now()));
+        postCache.evict(postId);
         log.info("Post lock status changed: {} -> {} by {}", 
             updatedPost.getTitle(), updatedPost.getLocked(), currentUser.getUsername());
         
@@ -228,21 +386,142 @@ public class PostService {
         return PostDTO.fromPostWithUserVote(updatedPost, userVote);
     }
     
-    public List<PostDTO> getPinnedPosts() {
-        List<Post> posts = postRepository.findPinnedPosts();
-        return posts.stream()
-                .map(post -> {
-                    String userVote = voteService.getUserVote(post.getId(), Vote.TargetType.POST);
-                    return PostDTO.fromPostWithUserVote(post, userVote);
-                })
-                .toList();
+    public List<PostSummaryDTO> getPinnedPosts() {
+        return toPostSummaries(postCache.getPinnedPosts(postRepository::findPinnedPosts));
     }
     
-    @Transactional
-    protected void incrementViewCount(String postId) {
-        postRepository.findById(postId).ifPresent(post -> {
-            post.setViewCount(post.getViewCount() + 1);
-            postRepository.save(post);
-        });
+    // Pages within a ranking board's exact head come from memory; deeper pages run the
+    // feed's indexed sort against Mongo
+    private Page<Post> rankedPosts(FeedRanking.Feed feed, String tag, Pageable pageable) {
+        Optional<Page<Post>> board = boardPage(feed, tag, pageable);
+        if (board.isPresent()) {
+            return board.get();
+        }
+        
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), FeedRanking.sort(feed));
+        LocalDateTime since = LocalDateTime.now().minus(FeedRanking.TRENDING_WINDOW);
+        if (tag == null) {
+            return feed == FeedRanking.Feed.TRENDING
+                ? postRepository.findTrendingPosts(since, sorted)
+                : postRepository.findByDeletedFalse(sorted);
+        }
+        return feed == FeedRanking.Feed.TRENDING
+            ? postRepository.findTrendingPostsByTag(tag, since, sorted)
+            : postRepository.findByTagAndDeletedFalse(tag, sorted);
+    }
+    
+    // As rankedPosts, but the Mongo fallback skips the count query
+    private Slice<Post> rankedSlice(FeedRanking.Feed feed, String tag, Pageable pageable) {
+        Optional<Page<Post>> board = boardPage(feed, tag, pageable);
+        if (board.isPresent()) {
+            return board.get();
+        }
+        
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), FeedRanking.sort(feed));
+        LocalDateTime since = LocalDateTime.now().minus(FeedRanking.TRENDING_WINDOW);
+        if (tag == null) {
+            return feed == FeedRanking.Feed.TRENDING
+                ? postRepository.findTrendingPostsSlice(since, sorted)
+                : postRepository.findSliceByDeletedFalse(sorted);
+        }
+        return feed == FeedRanking.Feed.TRENDING
+            ? postRepository.findTrendingPostsByTagSlice(tag, since, sorted)
+            : postRepository.findSliceByTagAndDeletedFalse(tag, sorted);
+    }
+    
+    private Optional<Page<Post>> boardPage(FeedRanking.Feed feed, String tag, Pageable pageable) {
+        return feedRanking.page(feed, tag, (int) pageable.getOffset(), pageable.getPageSize())
+            .map(ranked -> new PageImpl<>(findAllInOrder(ranked.postIds()), pageable, ranked.total()));
+    }
+    
+    private static FeedRanking.Feed rankedFeed(String sortBy) {
+        switch (sortBy != null ? sortBy.toLowerCase() : "recent") {
+            case "hot":
+                return FeedRanking.Feed.HOT;
+            case "top":
+                return FeedRanking.Feed.TOP;
+            case "trending":
+                return FeedRanking.Feed.TRENDING;
+            default:
+                return null;
+        }
+    }
+    
+    // Live posts are nearly the whole collection, so count the few deleted ones and subtract
+    // them from the metadata estimate instead of counting the live ones
+    private long approximateLivePostCount() {
+        long deleted = pageCounts.count("posts:deleted", Query.query(Criteria.where("deleted").is(true)), Post.class);
+        return Math.max(0, pageCounts.estimatedCount(Post.class) - deleted);
+    }
+    
+    private long approximateFeedCount(FeedRanking.Feed feed, String tag) {
+        if (feed != FeedRanking.Feed.TRENDING && tag == null) {
+            return approximateLivePostCount();
+        }
+        
+        Criteria criteria = Criteria.where("deleted").is(false);
+        String key = "posts";
+        if (tag != null) {
+            criteria.and("tags").is(tag);
+            key += ":tag:" + tag;
+        }
+        if (feed == FeedRanking.Feed.TRENDING) {
+            criteria.and("lastActivityAt").gte(LocalDateTime.now().minus(FeedRanking.TRENDING_WINDOW));
+            key += ":trending";
+        }
+        return pageCounts.count(key, Query.query(criteria), Post.class);
+    }
+    
+    // Edits write only their own fields: the counters and hot rank are kept by $inc, and a
+    // full save would write back the copies read before any increment that landed since
+    private Post setFields(String postId, Update update) {
+        Post updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(postId).and("deleted").is(false)),
+                update, FindAndModifyOptions.options().returnNew(true), Post.class);
+        if (updated == null) {
+            throw new RuntimeException("Post not found: " + postId);
+        }
+        return updated;
+    }
+    
+    // Same storage choice PostBodyCompressor makes on save, for an edit that bypasses it
+    private void setBody(Update update, String body) {
+        byte[] deflated = postBodyCompressor.isEnabled() ? postBodyCompressor.compress(body) : null;
+        if (deflated != null) {
+            update.unset("body").set(Post.COMPRESSED_BODY, new Binary(deflated));
+        } else {
+            update.set("body", body).unset(Post.COMPRESSED_BODY);
+        }
+        update.set("excerpt", Post.excerptOf(body));
+    }
+    
+    private List<Post> findAllInOrder(List<String> postIds) {
+        Map<String, Post> postsById = new HashMap<>();
+        postRepository.findSummariesByIdIn(postIds).forEach(post -> postsById.put(post.getId(), post));
+        return postIds.stream().map(postsById::get).filter(Objects::nonNull).toList();
+    }
+    
+    // Resolves the current user's votes for the whole page in one query
+    private Page<PostSummaryDTO> toPostSummaries(Page<Post> posts) {
+        Map<String, String> userVotes = voteService.getUserVotes(
+            posts.map(Post::getId).getContent(), Vote.TargetType.POST);
+        
+        return posts.map(post -> PostSummaryDTO.fromPostWithUserVote(post, userVotes.get(post.getId())));
+    }
+    
+    private Slice<PostSummaryDTO> toPostSummaries(Slice<Post> posts) {
+        Map<String, String> userVotes = voteService.getUserVotes(
+            posts.map(Post::getId).getContent(), Vote.TargetType.POST);
+        
+        return posts.map(post -> PostSummaryDTO.fromPostWithUserVote(post, userVotes.get(post.getId())));
+    }
+    
+    private List<PostSummaryDTO> toPostSummaries(List<Post> posts) {
+        Map<String, String> userVotes = voteService.getUserVotes(
+            posts.stream().map(Post::getId).toList(), Vote.TargetType.POST);
+        
+        return posts.stream()
+                .map(post -> PostSummaryDTO.fromPostWithUserVote(post, userVotes.get(post.getId())))
+                .toList();
     }
 }
\ No newline at end of file
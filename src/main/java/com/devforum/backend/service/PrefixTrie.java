@@ -0,0 +1,205 @@
+package com.devforum.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Weighted prefix trie for top-N completion. Every node keeps the best {@code topK} entries of
+ * its subtree, so a completion walks the prefix and returns that node's list without visiting
+ * the subtree. Children are held in sorted parallel arrays rather than maps to keep nodes small.
+ * Not thread-safe; callers guard it with their own lock.
+ */
+public final class PrefixTrie {
+
+    public record Entry(String value, long weight) {
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> BEST_FIRST =
+            Comparator.comparingLong(Entry::weight).reversed().thenComparing(Entry::value);
+
+    private final int topK;
+    private final Node root = new Node();
+    private int size;
+    private int nodes = 1;
+
+    public PrefixTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * Adds an entry without updating the ranked lists; call {@link #rank()} once the bulk load
+     * is done. Much cheaper than {@link #put} for building a whole trie.
+     */
+    public void load(String key, String value, long weight) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.entry == null) {
+            size++;
+        }
+        node.entry = new Entry(value, weight);
+    }
+
+    public void rank() {
+        rank(root);
+    }
+
+    public void put(String key, String value, long weight) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+        Node node = path[key.length()];
+        if (node.entry == null) {
+            size++;
+        }
+        node.entry = new Entry(value, weight);
+        rerank(key, path);
+    }
+
+    /**
+     * Moves an entry's weight by {@code delta}, flooring it at zero. A missing key is added with
+     * the given display value.
+     */
+    public void adjust(String key, String value, long delta) {
+        Node node = find(key);
+        long weight = node != null && node.entry != null ? node.entry.weight() + delta : delta;
+        String display = node != null && node.entry != null ? node.entry.value() : value;
+        put(key, display, Math.max(0, weight));
+    }
+
+    public void remove(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node node = path[key.length()];
+        if (node.entry == null) {
+            return;
+        }
+        node.entry = null;
+        size--;
+        rerank(key, path);
+    }
+
+    public List<Entry> complete(String prefix, int limit) {
+        Node node = find(prefix);
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+        Entry[] top = node.top;
+        return List.of(top.length <= limit ? top : Arrays.copyOf(top, limit));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int nodes() {
+        return nodes;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    // Bottom-up along one key's path, dropping nodes that no longer lead to an entry
+    private void rerank(String key, Node[] path) {
+        for (int i = key.length(); i >= 0; i--) {
+            Node node = path[i];
+            if (i > 0 && node.entry == null && node.labels.length == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+                nodes--;
+                continue;
+            }
+            node.top = best(node);
+        }
+    }
+
+    private void rank(Node node) {
+        for (Node child : node.children) {
+            rank(child);
+        }
+        node.top = best(node);
+    }
+
+    private Entry[] best(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        if (candidates.isEmpty()) {
+            return NO_ENTRIES;
+        }
+        candidates.sort(BEST_FIRST);
+        return candidates.subList(0, Math.min(topK, candidates.size())).toArray(NO_ENTRIES);
+    }
+
+    private final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Entry entry;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int at = -index - 1;
+            Node child = new Node();
+            labels = insert(labels, at, label);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+            nodes++;
+            return child;
+        }
+
+        private void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            char[] shrunkLabels = new char[labels.length - 1];
+            System.arraycopy(labels, 0, shrunkLabels, 0, at);
+            System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+            labels = shrunkLabels;
+            children = shrunk;
+        }
+
+        private static char[] insert(char[] array, int at, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, at);
+            grown[at] = value;
+            System.arraycopy(array, at, grown, at + 1, array.length - at);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.devforum.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects reputation changes as ledger events and applies them asynchronously. Events are
+ * coalesced per author, so a burst of votes on one author's content costs a single $inc.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReputationLedger {
+
+    private final UserService userService;
+
+    private final Map<String, Integer> pendingByAuthor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> eventsByReason = new ConcurrentHashMap<>();
+
+    private final LongAdder recordedEvents = new LongAdder();
+    private final LongAdder flushedAuthors = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile LocalDateTime lastFlushAt;
+
+    public void record(String authorId, int delta, String reason) {
+        if (authorId == null || delta == 0) {
+            return;
+        }
+        pendingByAuthor.merge(authorId, delta, Integer::sum);
+        eventsByReason.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        recordedEvents.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reputation.ledger.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        if (pendingByAuthor.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> drained = new HashMap<>();
+        for (String authorId : pendingByAuthor.keySet()) {
+            Integer delta = pendingByAuthor.remove(authorId);
+            if (delta != null) {
+                drained.put(authorId, delta);
+            }
+        }
+
+        try {
+            userService.applyReputationChanges(drained);
+            flushedAuthors.add(drained.size());
+            lastFlushAt = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            log.error("Reputation ledger flush failed, re-queueing {} authors: {}", drained.size(), e.getMessage());
+            drained.forEach((authorId, delta) -> pendingByAuthor.merge(authorId, delta, Integer::sum));
+            failedFlushes.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> reasons = new LinkedHashMap<>();
+        eventsByReason.forEach((reason, count) -> reasons.put(reason, count.sum()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingAuthors", pendingByAuthor.size());
+        stats.put("recordedEvents", recordedEvents.sum());
+        stats.put("eventsByReason", reasons);
+        stats.put("flushedAuthors", flushedAuthors.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+}
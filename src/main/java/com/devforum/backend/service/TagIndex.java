@@ -0,0 +1,364 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index from tag to posts for multi-tag queries. Every live post gets a
+ * dense ordinal in _id order and each tag keeps a Roaring bitmap of its posts' ordinals, so
+ * AND/OR/NOT combinations are bitmap operations and the newest matches are read by iterating
+ * the result backwards. Only the requested page of ids leaves the index; the caller hydrates
+ * them. Post writes keep the index current on this instance and a periodic rebuild picks up
+ * writes from other instances and compacts ordinals left behind by deleted posts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagIndex {
+
+    private static final String POSTS = "posts";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.tags.index.enabled:true}")
+    private boolean enabled;
+
+    public record Match(List<String> postIds, long total) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings postings;
+
+    // Posts written while a rebuild is loading, re-read once the new postings are swapped in
+    private Set<String> touchedDuringRebuild;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private volatile LocalDateTime lastRebuildAt;
+    private volatile long lastRebuildDurationMs;
+
+    /**
+     * Returns the requested page of posts matching every tag in {@code all}, at least one in
+     * {@code any} (when given) and none in {@code none}, newest first. Empty until the index
+     * has been built, in which case the caller should query Mongo instead.
+     */
+    public Optional<Match> query(Collection<String> all, Collection<String> any, Collection<String> none,
+                                 int offset, int size) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (postings == null) {
+                return Optional.empty();
+            }
+            queries.increment();
+
+            RoaringBitmap result = postings.live.clone();
+            for (String tag : all) {
+                result.and(postings.bitmap(tag));
+            }
+            if (!any.isEmpty()) {
+                RoaringBitmap union = new RoaringBitmap();
+                for (String tag : any) {
+                    union.or(postings.bitmap(tag));
+                }
+                result.and(union);
+            }
+            for (String tag : none) {
+                result.andNot(postings.bitmap(tag));
+            }
+
+            List<String> postIds = new ArrayList<>(size);
+            IntIterator newestFirst = result.getReverseIntIterator();
+            for (int skipped = 0; skipped < offset && newestFirst.hasNext(); skipped++) {
+                newestFirst.next();
+            }
+            while (postIds.size() < size && newestFirst.hasNext()) {
+                postIds.add(postings.idAt(newestFirst.next()));
+            }
+            return Optional.of(new Match(postIds, result.getLongCardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void onPostSaved(Post post) {
+        if (enabled) {
+            apply(post.getId(), post.getTags(), Boolean.TRUE.equals(post.getDeleted()));
+        }
+    }
+
+    public void onPostDeleted(String postId) {
+        if (enabled) {
+            apply(postId, List.of(), true);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tags.index.rebuild-interval-ms:1800000}",
+               initialDelayString = "${app.tags.index.rebuild-interval-ms:1800000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings loaded = new Postings();
+        Query query = Query.query(Criteria.where("deleted").is(false)).with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("_id", "tags");
+        try (Stream<Document> posts = mongoTemplate.stream(query, Document.class, POSTS)) {
+            posts.forEach(post ->
+                    loaded.add(post.getObjectId("_id").toHexString(), post.getList("tags", String.class)));
+        } catch (RuntimeException e) {
+            log.error("Tag index rebuild failed: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        loaded.optimize();
+
+        Set<String> touched;
+        lock.writeLock().lock();
+        try {
+            postings = loaded;
+            touched = touchedDuringRebuild;
+            touchedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        replay(touched);
+
+        lastRebuildAt = LocalDateTime.now();
+        lastRebuildDurationMs = System.currentTimeMillis() - started;
+        log.info("Rebuilt tag index: {} posts, {} tags in {} ms",
+                loaded.live.getCardinality(), loaded.byTag.size(), lastRebuildDurationMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            if (postings != null) {
+                long bitmapBytes = postings.live.getLongSizeInBytes();
+                for (RoaringBitmap bitmap : postings.byTag.values()) {
+                    bitmapBytes += bitmap.getLongSizeInBytes();
+                }
+                stats.put("posts", postings.live.getLongCardinality());
+                stats.put("ordinals", postings.size);
+                stats.put("tags", postings.byTag.size());
+                stats.put("bitmapBytes", bitmapBytes);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("queries", queries.sum());
+        stats.put("events", events.sum());
+        stats.put("lastRebuildAt", lastRebuildAt);
+        stats.put("lastRebuildDurationMs", lastRebuildDurationMs);
+        return stats;
+    }
+
+    private void apply(String postId, Collection<String> tags, boolean deleted) {
+        events.increment();
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringRebuild != null) {
+                touchedDuringRebuild.add(postId);
+            }
+            if (postings != null) {
+                postings.update(postId, tags != null ? tags : List.of(), deleted);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replay(Set<String> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(postIds));
+        query.fields().include("_id", "tags", "deleted");
+        Set<String> missing = new HashSet<>(postIds);
+        for (Document post : mongoTemplate.find(query, Document.class, POSTS)) {
+            String postId = post.getObjectId("_id").toHexString();
+            missing.remove(postId);
+            apply(postId, post.getList("tags", String.class), Boolean.TRUE.equals(post.getBoolean("deleted")));
+        }
+        missing.forEach(this::onPostDeleted);
+    }
+
+    /**
+     * Ordinal assignment plus the bitmaps. Ids are packed into a long and an int per ordinal and
+     * kept non-decreasing so lookups are a binary search. The rare id that arrives out of order
+     * (another instance's clock) lives in small side maps until the next rebuild, and its slot
+     * repeats the previous id to keep the arrays sorted. Not thread-safe; guarded by the index lock.
+     */
+    private static final class Postings {
+
+        private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+        private long[] idHigh = new long[1024];
+        private int[] idLow = new int[1024];
+        private int size;
+        private final Map<String, Integer> outOfOrder = new HashMap<>();
+        private final Map<Integer, String> outOfOrderIds = new HashMap<>();
+
+        private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+        private final RoaringBitmap live = new RoaringBitmap();
+
+        RoaringBitmap bitmap(String tag) {
+            return byTag.getOrDefault(tag, EMPTY);
+        }
+
+        String idAt(int ordinal) {
+            String misplaced = outOfOrderIds.get(ordinal);
+            if (misplaced != null) {
+                return misplaced;
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(12).putLong(idHigh[ordinal]).putInt(idLow[ordinal]);
+            return new ObjectId(bytes.array()).toHexString();
+        }
+
+        void add(String postId, Collection<String> tags) {
+            int ordinal = append(postId);
+            live.add(ordinal);
+            if (tags != null) {
+                tags.forEach(tag -> byTag.computeIfAbsent(tag, t -> new RoaringBitmap()).add(ordinal));
+            }
+        }
+
+        void update(String postId, Collection<String> tags, boolean deleted) {
+            int ordinal = ordinalOf(postId);
+            if (ordinal < 0) {
+                if (!deleted && ObjectId.isValid(postId)) {
+                    add(postId, tags);
+                }
+                return;
+            }
+
+            // Tag changes are rare, so scanning every posting list for the old tags is acceptable
+            List<String> emptied = new ArrayList<>();
+            for (Map.Entry<String, RoaringBitmap> entry : byTag.entrySet()) {
+                if (entry.getValue().checkedRemove(ordinal) && entry.getValue().isEmpty()) {
+                    emptied.add(entry.getKey());
+                }
+            }
+            emptied.forEach(byTag::remove);
+
+            if (deleted) {
+                live.remove(ordinal);
+                return;
+            }
+            live.add(ordinal);
+            tags.forEach(tag -> byTag.computeIfAbsent(tag, t -> new RoaringBitmap()).add(ordinal));
+        }
+
+        void optimize() {
+            live.runOptimize();
+            byTag.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        private int append(String postId) {
+            if (size == idHigh.length) {
+                idHigh = Arrays.copyOf(idHigh, size * 2);
+                idLow = Arrays.copyOf(idLow, size * 2);
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(new ObjectId(postId).toByteArray());
+            long high = bytes.getLong();
+            int low = bytes.getInt();
+            if (size > 0 && compare(high, low, idHigh[size - 1], idLow[size - 1]) <= 0) {
+                outOfOrder.put(postId, size);
+                outOfOrderIds.put(size, postId);
+                high = idHigh[size - 1];
+                low = idLow[size - 1];
+            }
+            idHigh[size] = high;
+            idLow[size] = low;
+            return size++;
+        }
+
+        private int ordinalOf(String postId) {
+            Integer misplaced = outOfOrder.get(postId);
+            if (misplaced != null) {
+                return misplaced;
+            }
+            if (!ObjectId.isValid(postId)) {
+                return -1;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(new ObjectId(postId).toByteArray());
+            long high = bytes.getLong();
+            int low = bytes.getInt();
+
+            // Lower bound: the first slot holding an id is the post itself, later equal slots are
+            // out-of-order posts repeating it
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(idHigh[mid], idLow[mid], high, low) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo < size && compare(idHigh[lo], idLow[lo], high, low) == 0 ? lo : -1;
+        }
+
+        private static int compare(long highA, int lowA, long highB, int lowB) {
+            int cmp = Long.compareUnsigned(highA, highB);
+            return cmp != 0 ? cmp : Integer.compareUnsigned(lowA, lowB);
+        }
+    }
+}
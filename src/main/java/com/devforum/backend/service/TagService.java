@@ -0,0 +1,192 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.TagDTO;
+import com.devforum.backend.entity.Tag;
+import com.devforum.backend.repository.TagRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@link Tag} documents in step with the posts that use them. Post writes pass the tag
+ * sets before and after the change and only the difference is written, as upserting $inc
+ * operations in one bulk. Popular tags are served from a snapshot refreshed on a schedule,
+ * so the sorted query runs once per interval instead of once per request.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagService {
+    
+    private static final int DUPLICATE_KEY = 11000;
+    
+    private final TagRepository tagRepository;
+    private final MongoTemplate mongoTemplate;
+    private final AutocompleteIndex autocompleteIndex;
+    
+    @Value("${app.tags.popular.size:100}")
+    private int popularSize;
+    
+    private volatile List<TagDTO> popularTags;
+    private volatile LocalDateTime popularRefreshedAt;
+    
+    /**
+     * Applies a post's tag change: +1 on tags it gained (creating them on first use) and -1
+     * on tags it lost. Pass an empty collection for a created or deleted post.
+     */
+    public void applyTagChange(Collection<String> before, Collection<String> after) {
+        Set<String> added = new LinkedHashSet<>(after != null ? after : List.of());
+        Set<String> removed = new LinkedHashSet<>(before != null ? before : List.of());
+        added.removeAll(removed);
+        removed.removeAll(after != null ? after : List.of());
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        added.forEach(name -> deltas.put(name, 1));
+        removed.forEach(name -> deltas.put(name, -1));
+        
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Tag.class);
+        List<String> upserted = new ArrayList<>();
+        for (String name : added) {
+            bulk.upsert(byName(name), increment(1, now).setOnInsert("createdAt", now));
+            upserted.add(name);
+        }
+        for (String name : removed) {
+            bulk.updateOne(byName(name), increment(-1, now));
+        }
+        
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Two posts introducing the same tag race on the unique name index; the loser
+            // retries as a plain update against the tag the winner created
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY || error.getIndex() >= upserted.size()) {
+                    throw e;
+                }
+                mongoTemplate.updateFirst(byName(upserted.get(error.getIndex())), increment(1, now), Tag.class);
+            }
+        }
+        autocompleteIndex.onTagCountsChanged(deltas);
+    }
+    
+    /**
+     * Tags starting with {@code prefix}, most used first. Served from the autocomplete index,
+     * or by an anchored case-insensitive regex until the index has been built.
+     */
+    public List<PrefixTrie.Entry> autocomplete(String prefix, int limit) {
+        int capped = Math.min(limit, autocompleteIndex.getMaxResults());
+        return autocompleteIndex.completeTags(prefix, capped).orElseGet(() -> {
+            Query query = Query.query(Criteria.where("name").regex("^" + Pattern.quote(prefix.trim()), "i"))
+                    .with(Sort.by(Sort.Direction.DESC, "postCount"))
+                    .limit(capped);
+            return mongoTemplate.find(query, Tag.class).stream()
+                    .map(tag -> new PrefixTrie.Entry(tag.getName(), tag.getPostCount() != null ? tag.getPostCount() : 0))
+                    .toList();
+        });
+    }
+    
+    public List<TagDTO> getPopularTags(int limit) {
+        List<TagDTO> snapshot = popularTags;
+        if (snapshot == null) {
+            refreshPopularTags();
+            snapshot = popularTags;
+        }
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.tags.popular.refresh-interval-ms:60000}",
+               initialDelayString = "${app.tags.popular.refresh-interval-ms:60000}")
+    public void refreshPopularTags() {
+        try {
+            popularTags = tagRepository.findPopularTags(PageRequest.of(0, popularSize))
+                    .map(TagDTO::fromTag)
+                    .getContent();
+            popularRefreshedAt = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            log.error("Popular tags refresh failed: {}", e.getMessage());
+            if (popularTags == null) {
+                popularTags = List.of();
+            }
+        }
+    }
+    
+    public Page<TagDTO> getTrendingTags(Pageable pageable) {
+        return tagRepository.findTrendingTags(pageable).map(TagDTO::fromTag);
+    }
+    
+    public Page<TagDTO> searchTags(String query, Pageable pageable) {
+        return tagRepository.searchTags(query, pageable).map(TagDTO::fromTag);
+    }
+    
+    public TagDTO getTag(String name) {
+        return tagRepository.findByName(name)
+                .map(TagDTO::fromTag)
+                .orElseThrow(() -> new RuntimeException("Tag not found: " + name));
+    }
+    
+    public TagDTO updateTag(String name, Map<String, String> updates) {
+        Tag tag = tagRepository.findByName(name)
+                .orElseThrow(() -> new RuntimeException("Tag not found: " + name));
+        
+        if (updates.containsKey("description")) {
+            tag.setDescription(updates.get("description"));
+        }
+        if (updates.containsKey("color")) {
+            tag.setColor(updates.get("color"));
+        }
+        tag.setUpdatedAt(LocalDateTime.now());
+        
+        // postCount is maintained by $inc, so write only the editable fields back
+        mongoTemplate.updateFirst(byName(name), new Update()
+                .set("description", tag.getDescription())
+                .set("color", tag.getColor())
+                .set("updatedAt", tag.getUpdatedAt()), Tag.class);
+        return TagDTO.fromTag(tag);
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<TagDTO> snapshot = popularTags;
+        stats.put("popularSnapshotSize", snapshot != null ? snapshot.size() : 0);
+        stats.put("popularRefreshedAt", popularRefreshedAt);
+        return stats;
+    }
+    
+    private static Query byName(String name) {
+        return Query.query(Criteria.where("name").is(name));
+    }
+    
+    private static Update increment(int delta, LocalDateTime now) {
+        return new Update().inc("postCount", delta).set("updatedAt", now);
+    }
+}
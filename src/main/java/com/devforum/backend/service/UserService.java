@@ -1,5 +1,6 @@
 package com.devforum.backend.service;
 
+import com.devforum.backend.dto.CursorPage;
 import com.devforum.backend.dto.UserProfileDTO;
 import com.devforum.backend.entity.User;
 import com.devforum.backend.repository.UserRepository;
@@ -7,13 +8,24 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
@@ -22,6 +34,10 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPager keysetPager;
+    private final PageCounts pageCounts;
+    private final AutocompleteIndex autocompleteIndex;
     
     public Optional<User> getCurrentUser() {
         try {
@@ -52,6 +68,19 @@ public class UserService {
         return UserProfileDTO.fromUser(user, isOwnProfile);
     }
     
+    public User getUserByUsername(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
+    
+    public CursorPage<UserProfileDTO> getTopUsersByCursor(String cursor, int size) {
+        KeysetPager.Slice<User> slice = keysetPager.find(new Criteria(),
+                Sort.by(Sort.Order.desc("reputation"), Sort.Order.desc("_id")), cursor, size, User.class);
+        return CursorPage.of(
+                slice.content().stream().map(user -> UserProfileDTO.fromUser(user, false)).toList(),
+                slice.nextCursor());
+    }
+    
     public UserProfileDTO getUserProfileById(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
@@ -91,24 +120,93 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         
         userRepository.save(user);
+        autocompleteIndex.onUserSaved(user);
         log.info("User reputation updated: {} -> {}", user.getUsername(), newReputation);
     }
     
+    /**
+     * Applies coalesced reputation changes (author id -> delta) in a single ordered bulk write.
+     * The trailing update keeps the floor-at-zero rule for any author the increments pushed below it.
+     */
+    public void applyReputationChanges(Map<String, Integer> reputationChanges) {
+        Map<String, Integer> changes = new HashMap<>(reputationChanges);
+        changes.values().removeIf(change -> change == 0);
+        if (changes.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, User.class);
+        changes.forEach((userId, change) -> ops.updateOne(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("reputation", change).set("updatedAt", now)));
+        ops.updateMulti(
+                Query.query(Criteria.where("_id").in(changes.keySet()).and("reputation").lt(0)),
+                Update.update("reputation", 0));
+        ops.execute();
+        autocompleteIndex.onReputationChanged(changes);
+        
+        log.debug("User reputation updated for {} authors", changes.size());
+    }
+    
     public Page<UserProfileDTO> searchUsers(String searchTerm, Pageable pageable) {
         Page<User> users = userRepository.searchUsers(searchTerm, pageable);
         return users.map(user -> UserProfileDTO.fromUser(user, false));
     }
     
+    /**
+     * Usernames starting with {@code prefix}, highest reputation first. Served from the
+     * autocomplete index, or by an anchored case-insensitive regex until it has been built.
+     */
+    public List<PrefixTrie.Entry> autocomplete(String prefix, int limit) {
+        int capped = Math.min(limit, autocompleteIndex.getMaxResults());
+        return autocompleteIndex.completeUsers(prefix, capped).orElseGet(() -> {
+            Query query = Query.query(Criteria.where("username").regex("^" + Pattern.quote(prefix.trim()), "i")
+                            .and("enabled").ne(false))
+                    .with(Sort.by(Sort.Direction.DESC, "reputation"))
+                    .limit(capped);
+            return mongoTemplate.find(query, User.class).stream()
+                    .map(user -> new PrefixTrie.Entry(user.getUsername(), user.getReputation() != null ? user.getReputation() : 0))
+                    .toList();
+        });
+    }
+    
+    public Slice<UserProfileDTO> searchUsers(String searchTerm, Pageable pageable, PageCounts.Mode countMode) {
+        return pageCounts.fetch(countMode, pageable,
+            p -> searchUsers(searchTerm, p),
+            p -> userRepository.searchUsersSlice(searchTerm, p).map(user -> UserProfileDTO.fromUser(user, false)),
+            () -> pageCounts.count("users:search:" + searchTerm, Query.query(new Criteria().orOperator(
+                Criteria.where("username").regex(searchTerm, "i"),
+                Criteria.where("firstName").regex(searchTerm, "i"),
+                Criteria.where("lastName").regex(searchTerm, "i"))), User.class));
+    }
+    
     public Page<UserProfileDTO> getTopUsersByReputation(Pageable pageable) {
         Page<User> users = userRepository.findTopUsersByReputation(pageable);
         return users.map(user -> UserProfileDTO.fromUser(user, false));
     }
     
+    public Slice<UserProfileDTO> getTopUsersByReputation(Pageable pageable, PageCounts.Mode countMode) {
+        // The leaderboard is unfiltered, so its total is the collection's metadata count
+        return pageCounts.fetch(countMode, pageable,
+            p -> getTopUsersByReputation(p),
+            p -> userRepository.findTopUsersByReputationSlice(p).map(user -> UserProfileDTO.fromUser(user, false)),
+            () -> pageCounts.estimatedCount(User.class));
+    }
+    
     public Page<UserProfileDTO> getUsersByRole(User.Role role, Pageable pageable) {
         Page<User> users = userRepository.findByRole(role, pageable);
         return users.map(user -> UserProfileDTO.fromUser(user, false));
     }
     
+    public Slice<UserProfileDTO> getUsersByRole(User.Role role, Pageable pageable, PageCounts.Mode countMode) {
+        return pageCounts.fetch(countMode, pageable,
+            p -> getUsersByRole(role, p),
+            p -> userRepository.findSliceByRole(role, p).map(user -> UserProfileDTO.fromUser(user, false)),
+            () -> pageCounts.count("users:role:" + role,
+                Query.query(Criteria.where("role").is(role)), User.class));
+    }
+    
     @Transactional
     public void changeUserRole(String userId, User.Role newRole) {
         // Only admins should be able to call this
@@ -0,0 +1,334 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-process cache of active users' vote states. Each user gets an open-addressing table
+ * keyed by the 12 ObjectId bytes of the target (packed into a long and an int) with one
+ * state byte per slot, so an entry costs ~13 bytes instead of a boxed Vote document.
+ * Known "no vote" states are cached too, which lets feed pages answer entirely from memory.
+ * Writes on other instances are not seen, so a table is dropped once it reaches max-age
+ * however active its user is.
+ */
+@Slf4j
+@Service
+public class UserVoteCache {
+
+    static final int NO_VOTE = 0;
+    static final int UPVOTE = 1;
+    static final int DOWNVOTE = 2;
+    static final int UNKNOWN = -1;
+
+    @Value("${app.votes.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.votes.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.votes.cache.max-entries-per-user:4096}")
+    private int maxEntriesPerUser;
+
+    @Value("${app.votes.cache.idle-ttl-ms:900000}")
+    private long idleTtlMs;
+
+    @Value("${app.votes.cache.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private final Map<String, VoteTable> tables = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Returns the user's vote states for the given targets, loading only the ids that are not
+     * cached yet. Targets without a vote are absent from the result, as with the loader.
+     */
+    public Map<String, String> getUserVotes(String userId, Vote.TargetType targetType, Collection<String> targetIds,
+                                            Function<Collection<String>, Map<String, String>> loader) {
+        if (!enabled) {
+            return loader.apply(targetIds);
+        }
+
+        VoteTable table = tableFor(userId);
+        Map<String, String> votes = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String targetId : targetIds) {
+            int state = ObjectId.isValid(targetId) ? table.get(targetId, targetType) : UNKNOWN;
+            if (state == UNKNOWN) {
+                missing.add(targetId);
+            } else if (state != NO_VOTE) {
+                votes.put(targetId, toVoteName(state));
+            }
+        }
+
+        hits.add(targetIds.size() - missing.size());
+        misses.add(missing.size());
+
+        if (!missing.isEmpty()) {
+            long writesBeforeLoad = table.writes();
+            Map<String, String> loaded = loader.apply(missing);
+            for (String targetId : missing) {
+                String vote = loaded.get(targetId);
+                if (ObjectId.isValid(targetId)) {
+                    table.putLoaded(targetId, targetType, toState(vote), maxEntriesPerUser, writesBeforeLoad);
+                }
+                if (vote != null) {
+                    votes.put(targetId, vote);
+                }
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Keeps the cached state in line with a vote write; a null vote type means the vote was removed.
+     */
+    public void recordVote(String userId, Vote.TargetType targetType, String targetId, Vote.VoteType voteType) {
+        if (!enabled || !ObjectId.isValid(targetId)) {
+            return;
+        }
+        tableFor(userId).put(targetId, targetType, toState(voteType != null ? voteType.name() : null),
+                maxEntriesPerUser);
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.cache.sweep-interval-ms:60000}")
+    public void evictIdleUsers() {
+        long now = System.currentTimeMillis();
+        int before = tables.size();
+        tables.values().removeIf(table -> table.lastAccess < now - idleTtlMs || isExpired(table, now));
+        int removed = before - tables.size();
+        if (removed > 0) {
+            evictions.add(removed);
+            log.debug("Evicted {} idle user vote tables", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long entries = 0;
+        long footprint = 0;
+        for (VoteTable table : tables.values()) {
+            entries += table.size();
+            footprint += table.footprintBytes();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("users", tables.size());
+        stats.put("entries", entries);
+        stats.put("memoryBytes", footprint);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictedUsers", evictions.sum());
+        return stats;
+    }
+
+    private VoteTable tableFor(String userId) {
+        long now = System.currentTimeMillis();
+        VoteTable table = tables.get(userId);
+        if (table != null && isExpired(table, now) && tables.remove(userId, table)) {
+            evictions.increment();
+            table = null;
+        }
+        if (table == null) {
+            if (tables.size() >= maxUsers) {
+                evictLeastRecentlyUsed();
+            }
+            table = tables.computeIfAbsent(userId, id -> new VoteTable());
+        }
+        table.lastAccess = now;
+        return table;
+    }
+
+    private boolean isExpired(VoteTable table, long now) {
+        return table.createdAt < now - maxAgeMs;
+    }
+
+    // Drops the least recently active tenth of the users in one pass instead of one per insert
+    private synchronized void evictLeastRecentlyUsed() {
+        if (tables.size() < maxUsers) {
+            return;
+        }
+        List<Map.Entry<String, VoteTable>> entries = new ArrayList<>(tables.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        int toEvict = Math.max(1, maxUsers / 10);
+        for (int i = 0; i < toEvict && i < entries.size(); i++) {
+            tables.remove(entries.get(i).getKey());
+        }
+        evictions.add(toEvict);
+    }
+
+    private static int toState(String voteType) {
+        if (voteType == null) {
+            return NO_VOTE;
+        }
+        return Vote.VoteType.UPVOTE.name().equals(voteType) ? UPVOTE : DOWNVOTE;
+    }
+
+    private static String toVoteName(int state) {
+        return state == UPVOTE ? Vote.VoteType.UPVOTE.name() : Vote.VoteType.DOWNVOTE.name();
+    }
+
+    /**
+     * Linear-probing hash table over packed ObjectId keys. Slots are never removed individually,
+     * so a cleared vote is stored as NO_VOTE and the table is reset once a new key would take it
+     * past its bound; updates to keys already present never reset it.
+     */
+    static final class VoteTable {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] keyHigh = new long[INITIAL_CAPACITY];
+        private int[] keyLow = new int[INITIAL_CAPACITY];
+        // 0 = empty slot, otherwise 1 + targetType * 3 + vote state
+        private byte[] states = new byte[INITIAL_CAPACITY];
+        private int size;
+        private long writes;
+
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastAccess = createdAt;
+
+        synchronized int get(String targetId, Vote.TargetType targetType) {
+            int slot = find(high(targetId), low(targetId), targetType.ordinal());
+            return slot >= 0 ? voteOf(states[slot]) : UNKNOWN;
+        }
+
+        synchronized int capacity() {
+            return states.length;
+        }
+
+        // The slot holding the key, or -1
+        private int find(long high, int low, int type) {
+            int mask = states.length - 1;
+            for (int slot = hash(high, low) & mask; states[slot] != 0; slot = (slot + 1) & mask) {
+                if (keyHigh[slot] == high && keyLow[slot] == low && typeOf(states[slot]) == type) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        synchronized long writes() {
+            return writes;
+        }
+
+        synchronized void put(String targetId, Vote.TargetType targetType, int vote, int maxEntries) {
+            writes++;
+            store(targetId, targetType, vote, maxEntries);
+        }
+
+        // Skips loaded states if a vote was written meanwhile, since the load may predate it
+        synchronized void putLoaded(String targetId, Vote.TargetType targetType, int vote, int maxEntries,
+                                    long writesBeforeLoad) {
+            if (writes == writesBeforeLoad) {
+                store(targetId, targetType, vote, maxEntries);
+            }
+        }
+
+        private void store(String targetId, Vote.TargetType targetType, int vote, int maxEntries) {
+            long high = high(targetId);
+            int low = low(targetId);
+            byte state = (byte) (1 + targetType.ordinal() * 3 + vote);
+            int slot = find(high, low, targetType.ordinal());
+            if (slot >= 0) {
+                states[slot] = state;
+                return;
+            }
+            if (size >= maxEntries) {
+                reset();
+            } else if ((size + 1) * 4 > states.length * 3) {
+                resize(states.length * 2);
+            }
+            insert(high, low, state);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long footprintBytes() {
+            // Three arrays plus their headers and the table object itself
+            return states.length * (8L + 4L + 1L) + 3 * 16L + 32L;
+        }
+
+        private void insert(long high, int low, byte state) {
+            int mask = states.length - 1;
+            int slot = hash(high, low) & mask;
+            while (states[slot] != 0) {
+                if (keyHigh[slot] == high && keyLow[slot] == low && typeOf(states[slot]) == typeOf(state)) {
+                    states[slot] = state;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keyHigh[slot] = high;
+            keyLow[slot] = low;
+            states[slot] = state;
+            size++;
+        }
+
+        private void resize(int capacity) {
+            long[] oldHigh = keyHigh;
+            int[] oldLow = keyLow;
+            byte[] oldStates = states;
+
+            keyHigh = new long[capacity];
+            keyLow = new int[capacity];
+            states = new byte[capacity];
+            size = 0;
+            for (int i = 0; i < oldStates.length; i++) {
+                if (oldStates[i] != 0) {
+                    insert(oldHigh[i], oldLow[i], oldStates[i]);
+                }
+            }
+        }
+
+        private void reset() {
+            keyHigh = new long[INITIAL_CAPACITY];
+            keyLow = new int[INITIAL_CAPACITY];
+            states = new byte[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        private static int typeOf(byte state) {
+            return (state - 1) / 3;
+        }
+
+        private static int voteOf(byte state) {
+            return (state - 1) % 3;
+        }
+
+        private static long high(String objectId) {
+            return Long.parseUnsignedLong(objectId, 0, 16, 16);
+        }
+
+        private static int low(String objectId) {
+            return Integer.parseUnsignedInt(objectId, 16, 24, 16);
+        }
+
+        private static int hash(long high, int low) {
+            long mixed = (high ^ (low * 0x9E3779B97F4A7C15L)) * 0xC2B2AE3D27D4EB4FL;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
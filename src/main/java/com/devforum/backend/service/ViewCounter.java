@@ -0,0 +1,248 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers post views in memory and flushes them periodically as one bulk $inc per post, so a
+ * page view no longer rewrites the post. When unique-viewer tracking is on, each buffered post
+ * also carries a HyperLogLog sketch of this interval's viewers; at flush time it is merged into
+ * the post's persisted sketch in {@code post_view_sketches} and the estimate is copied onto
+ * {@link Post#getUniqueViewers()}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewCounter {
+
+    private static final String SKETCHES = "post_view_sketches";
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.views.unique-viewers.enabled:true}")
+    private boolean uniqueViewersEnabled;
+
+    @Value("${app.views.max-pending-posts:10000}")
+    private int maxPendingPosts;
+
+    // Mutated only inside compute(), as in the vote write-behind buffer
+    private final Map<String, PendingViews> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder recordedViews = new LongAdder();
+    private final LongAdder flushedPosts = new LongAdder();
+    private final LongAdder mergedSketches = new LongAdder();
+    private final LongAdder sketchConflicts = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile long lastFlushDurationMs;
+    private volatile LocalDateTime lastFlushAt;
+
+    public void record(String postId, String viewerKey) {
+        pending.compute(postId, (id, views) -> {
+            PendingViews updated = views != null ? views : new PendingViews();
+            updated.count++;
+            if (uniqueViewersEnabled && viewerKey != null) {
+                if (updated.sketch == null) {
+                    updated.sketch = new HyperLogLog();
+                }
+                updated.sketch.offer(viewerKey);
+            }
+            return updated;
+        });
+        recordedViews.increment();
+
+        if (pending.size() >= maxPendingPosts) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        Map<String, PendingViews> drained = new HashMap<>();
+        for (String postId : pending.keySet()) {
+            PendingViews views = pending.remove(postId);
+            if (views != null) {
+                drained.put(postId, views);
+            }
+        }
+
+        try {
+            BulkOperations posts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+            drained.forEach((postId, views) -> posts.updateOne(
+                    Query.query(Criteria.where("_id").is(postId)),
+                    new Update().inc("viewCount", views.count)));
+            posts.execute();
+        } catch (RuntimeException e) {
+            log.error("View count flush failed, re-queueing {} posts: {}", drained.size(), e.getMessage());
+            drained.forEach(this::requeue);
+            failedFlushes.increment();
+            return;
+        }
+
+        Map<String, HyperLogLog> sketches = new HashMap<>();
+        drained.forEach((postId, views) -> {
+            if (views.sketch != null) {
+                sketches.put(postId, views.sketch);
+            }
+        });
+        try {
+            mergeSketches(sketches);
+        } catch (RuntimeException e) {
+            // Counts are already written; the viewers of this interval are only lost to the estimate
+            log.error("Unique viewer merge failed for {} posts: {}", sketches.size(), e.getMessage());
+            failedFlushes.increment();
+        }
+
+        flushedPosts.add(drained.size());
+        lastFlushAt = LocalDateTime.now();
+        lastFlushDurationMs = System.currentTimeMillis() - started;
+        log.debug("Flushed views for {} posts in {} ms", drained.size(), lastFlushDurationMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("uniqueViewersEnabled", uniqueViewersEnabled);
+        stats.put("pendingPosts", pending.size());
+        stats.put("recordedViews", recordedViews.sum());
+        stats.put("flushedPosts", flushedPosts.sum());
+        stats.put("mergedSketches", mergedSketches.sum());
+        stats.put("sketchConflicts", sketchConflicts.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("lastFlushDurationMs", lastFlushDurationMs);
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+
+    /**
+     * Merges interval sketches into the stored ones. Writes are guarded by a version number so
+     * a concurrent flush from another instance is re-read and merged instead of overwritten.
+     */
+    private void mergeSketches(Map<String, HyperLogLog> sketches) {
+        Map<String, HyperLogLog> remaining = sketches;
+        for (int attempt = 0; attempt < MAX_MERGE_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            remaining = tryMergeSketches(remaining);
+            sketchConflicts.add(remaining.size());
+        }
+        if (!remaining.isEmpty()) {
+            log.warn("Gave up merging unique viewer sketches for {} posts", remaining.size());
+        }
+    }
+
+    private Map<String, HyperLogLog> tryMergeSketches(Map<String, HyperLogLog> sketches) {
+        Map<String, Document> stored = new HashMap<>();
+        for (Document sketch : mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(sketches.keySet())), Document.class, SKETCHES)) {
+            stored.put(sketch.get("_id").toString(), sketch);
+        }
+
+        String writer = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> estimates = new HashMap<>();
+        BulkOperations writes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SKETCHES);
+
+        sketches.forEach((postId, delta) -> {
+            Document existing = stored.get(postId);
+            HyperLogLog merged = existing != null
+                    ? HyperLogLog.fromBytes(existing.get("registers", Binary.class).getData())
+                    : new HyperLogLog();
+            merged.merge(delta);
+            long estimate = merged.estimate();
+            estimates.put(postId, estimate);
+
+            Update update = new Update()
+                    .set("registers", new Binary(merged.toBytes()))
+                    .set("estimate", estimate)
+                    .set("writer", writer)
+                    .set("updatedAt", now)
+                    .inc("version", 1);
+            Criteria criteria = Criteria.where("_id").is(postId);
+            if (existing != null) {
+                writes.updateOne(Query.query(criteria.and("version").is(existing.get("version"))), update);
+            } else {
+                writes.upsert(Query.query(criteria.and("version").exists(false)), update);
+            }
+        });
+
+        try {
+            writes.execute();
+        } catch (RuntimeException e) {
+            // A concurrent first write makes the upsert hit a duplicate _id; the check below retries it
+            log.debug("Unique viewer sketch write conflicted: {}", e.getMessage());
+        }
+
+        // Only sketches that now carry this flush's writer id were merged by us
+        Map<String, HyperLogLog> conflicts = new HashMap<>(sketches);
+        Query written = Query.query(Criteria.where("_id").in(sketches.keySet()).and("writer").is(writer));
+        written.fields().include("_id");
+        for (Document sketch : mongoTemplate.find(written, Document.class, SKETCHES)) {
+            conflicts.remove(sketch.get("_id").toString());
+        }
+
+        BulkOperations posts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        int merged = 0;
+        for (Map.Entry<String, Long> estimate : estimates.entrySet()) {
+            if (!conflicts.containsKey(estimate.getKey())) {
+                posts.updateOne(Query.query(Criteria.where("_id").is(estimate.getKey())),
+                        Update.update("uniqueViewers", estimate.getValue()));
+                merged++;
+            }
+        }
+        if (merged > 0) {
+            posts.execute();
+        }
+        mergedSketches.add(merged);
+        return conflicts;
+    }
+
+    private void requeue(String postId, PendingViews views) {
+        pending.merge(postId, views, (current, requeued) -> {
+            current.count += requeued.count;
+            if (requeued.sketch != null) {
+                if (current.sketch == null) {
+                    current.sketch = new HyperLogLog();
+                }
+                current.sketch.merge(requeued.sketch);
+            }
+            return current;
+        });
+    }
+
+    private static final class PendingViews {
+        private int count;
+        private HyperLogLog sketch;
+    }
+}
@@ -0,0 +1,200 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in write-behind buffer for vote counters. Votes are still recorded synchronously,
+ * but the resulting upvote/downvote deltas are accumulated per target and written as
+ * bulk $inc operations on a fixed interval. The matching reputation changes are resolved
+ * per author at flush time and handed to the {@link ReputationLedger}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteAggregationBuffer {
+
+    private final VoteCounterWriter voteCounterWriter;
+
+    @Value("${app.votes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.votes.write-behind.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    @Value("${app.votes.write-behind.max-pending-targets:10000}")
+    private int maxPendingTargets;
+
+    // Counters are only mutated inside compute(), which locks the map bin, so a flush that
+    // removes an entry can never race with a writer still adding to it
+    private final Map<TargetKey, PendingCounters> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+
+    // Applied counter deltas whose reputation has not been recorded yet; only touched under flush()
+    private final List<VoteCounterWriter.CounterDelta> pendingReputation = new ArrayList<>();
+
+    private final LongAdder recordedVotes = new LongAdder();
+    private final LongAdder flushedTargets = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile long lastFlushDurationMs;
+    private volatile LocalDateTime lastFlushAt;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(Vote.TargetType targetType, String targetId, int upvoteDelta, int downvoteDelta) {
+        pending.compute(new TargetKey(targetType, targetId), (key, counters) -> {
+            PendingCounters updated = counters != null ? counters : new PendingCounters();
+            updated.upvotes += upvoteDelta;
+            updated.downvotes += downvoteDelta;
+            return updated;
+        });
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+        recordedVotes.increment();
+
+        // Flush inline when the buffer falls too far behind the scheduler
+        if (pending.size() >= maxPendingTargets || pendingLagMs() > maxLagMs) {
+            flush();
+        }
+    }
+
+    public boolean hasPending(Vote.TargetType targetType, String targetId) {
+        return pending.containsKey(new TargetKey(targetType, targetId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty() && pendingReputation.isEmpty()) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        oldestPendingAt.set(0);
+
+        Map<TargetKey, PendingCounters> drained = new HashMap<>();
+        for (TargetKey key : pending.keySet()) {
+            PendingCounters counters = pending.remove(key);
+            if (counters != null && !counters.isEmpty()) {
+                drained.put(key, counters);
+            }
+        }
+
+        // Only the deltas whose write failed go back to the next flush; the rest were applied
+        List<VoteCounterWriter.CounterDelta> deltas = toCounterDeltas(drained);
+        List<VoteCounterWriter.CounterDelta> failed = deltas.isEmpty() ? List.of() : voteCounterWriter.writeCounters(deltas);
+        if (!failed.isEmpty()) {
+            log.error("Vote counter flush failed for {} of {} targets, re-queueing them", failed.size(), deltas.size());
+            failed.forEach(delta -> record(new TargetKey(delta.targetType(), delta.targetId()),
+                    new PendingCounters(delta.upvotes(), delta.downvotes())));
+            failedFlushes.increment();
+        }
+
+        // Reputation for applied counters is kept until it has been recorded
+        List<VoteCounterWriter.CounterDelta> applied = new ArrayList<>(deltas);
+        applied.removeAll(new HashSet<>(failed));
+        pendingReputation.addAll(applied);
+        if (!pendingReputation.isEmpty()) {
+            try {
+                voteCounterWriter.recordReputation(List.copyOf(pendingReputation), "VOTE_BATCH");
+                pendingReputation.clear();
+            } catch (RuntimeException e) {
+                log.error("Reputation lookup failed for {} targets, retrying on the next flush: {}",
+                        pendingReputation.size(), e.getMessage());
+                failedFlushes.increment();
+            }
+        }
+
+        flushes.increment();
+        flushedTargets.add(applied.size());
+        lastFlushAt = LocalDateTime.now();
+        lastFlushDurationMs = System.currentTimeMillis() - started;
+        log.debug("Flushed vote counters for {} targets in {} ms", applied.size(), lastFlushDurationMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingTargets", pending.size());
+        stats.put("pendingReputationTargets", pendingReputation.size());
+        stats.put("oldestPendingAgeMs", pendingLagMs());
+        stats.put("maxLagMs", maxLagMs);
+        stats.put("maxPendingTargets", maxPendingTargets);
+        stats.put("recordedVotes", recordedVotes.sum());
+        stats.put("flushedTargets", flushedTargets.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("lastFlushDurationMs", lastFlushDurationMs);
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+
+    private long pendingLagMs() {
+        long since = oldestPendingAt.get();
+        return since == 0 ? 0 : System.currentTimeMillis() - since;
+    }
+
+    private void record(TargetKey key, PendingCounters counters) {
+        pending.merge(key, counters, (current, requeued) -> {
+            current.upvotes += requeued.upvotes;
+            current.downvotes += requeued.downvotes;
+            return current;
+        });
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    private List<VoteCounterWriter.CounterDelta> toCounterDeltas(Map<TargetKey, PendingCounters> drained) {
+        List<VoteCounterWriter.CounterDelta> deltas = new ArrayList<>(drained.size());
+        drained.forEach((key, counters) -> deltas.add(new VoteCounterWriter.CounterDelta(
+            key.targetType(), key.targetId(), counters.upvotes, counters.downvotes)));
+        return deltas;
+    }
+
+    private record TargetKey(Vote.TargetType targetType, String targetId) {
+    }
+
+    private static final class PendingCounters {
+        private int upvotes;
+        private int downvotes;
+
+        private PendingCounters() {
+        }
+
+        private PendingCounters(int upvotes, int downvotes) {
+            this.upvotes = upvotes;
+            this.downvotes = downvotes;
+        }
+
+        private boolean isEmpty() {
+            return upvotes == 0 && downvotes == 0;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Comment;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.Vote;
+import com.mongodb.DBRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes batches of vote counter deltas as unordered bulk $inc operations and turns them
+ * into per-author reputation events. Shared by the write-behind buffer and the batch vote API.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteCounterWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReputationLedger reputationLedger;
+    private final FeedRanking feedRanking;
+    private final PostCache postCache;
+    private final CommentTreeCache commentTreeCache;
+
+    public record CounterDelta(Vote.TargetType targetType, String targetId, int upvotes, int downvotes) {
+    }
+
+    /**
+     * Applies the deltas as one unordered bulk per target type and returns the deltas that were
+     * not applied, so a caller can retry exactly those. Failed operations inside a bulk are
+     * identified by their index; if a whole bulk fails without a result, all of its deltas are
+     * returned.
+     */
+    public List<CounterDelta> writeCounters(Collection<CounterDelta> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations postOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        BulkOperations commentOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+        List<CounterDelta> postDeltas = new ArrayList<>();
+        List<CounterDelta> commentDeltas = new ArrayList<>();
+
+        for (CounterDelta delta : deltas) {
+            Query query = Query.query(Criteria.where("_id").is(delta.targetId()));
+
+            if (delta.targetType() == Vote.TargetType.POST) {
+                postOps.updateOne(query, HotRank.increment(delta.upvotes(), delta.downvotes(), 0, now));
+                postDeltas.add(delta);
+            } else {
+                commentOps.updateOne(query, new Update()
+                        .inc("upvotes", delta.upvotes())
+                        .inc("downvotes", delta.downvotes()));
+                commentDeltas.add(delta);
+            }
+        }
+
+        List<CounterDelta> failed = new ArrayList<>();
+        if (!postDeltas.isEmpty()) {
+            failed.addAll(execute(postOps, postDeltas));
+            List<String> postIds = postDeltas.stream().map(CounterDelta::targetId).toList();
+            postCache.evictAll(postIds);
+            feedRanking.refresh(postIds);
+        }
+        if (!commentDeltas.isEmpty()) {
+            failed.addAll(execute(commentOps, commentDeltas));
+            commentTreeCache.onVoteCountsChanged(commentDeltas.stream().map(CounterDelta::targetId).toList());
+        }
+        return failed;
+    }
+
+    // The operations of a bulk are in the same order as its deltas
+    private List<CounterDelta> execute(BulkOperations ops, List<CounterDelta> deltas) {
+        try {
+            ops.execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<CounterDelta> failed = new ArrayList<>();
+            e.getErrors().forEach(error -> failed.add(deltas.get(error.getIndex())));
+            return failed;
+        } catch (RuntimeException e) {
+            log.error("Vote counter bulk of {} targets failed: {}", deltas.size(), e.getMessage());
+            return deltas;
+        }
+    }
+
+    /**
+     * Resolves the authors of the voted targets with one projected $in query per target type
+     * and records the resulting reputation changes in the ledger.
+     */
+    public void recordReputation(Collection<CounterDelta> deltas, String reason) {
+        Map<String, CounterDelta> posts = new HashMap<>();
+        Map<String, CounterDelta> comments = new HashMap<>();
+        for (CounterDelta delta : deltas) {
+            (delta.targetType() == Vote.TargetType.POST ? posts : comments).put(delta.targetId(), delta);
+        }
+
+        // Every lookup and write happens before anything reaches the ledger, so a caller can
+        // retry the whole batch after a failure without recording any change twice
+        Map<String, Integer> changes = new HashMap<>();
+        Set<Object> votedCommentPosts = new HashSet<>();
+        resolveReputation(Vote.TargetType.POST, posts, changes, null);
+        resolveReputation(Vote.TargetType.COMMENT, comments, changes, votedCommentPosts);
+
+        // Update post activity time when comments are voted on
+        if (!votedCommentPosts.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(votedCommentPosts)),
+                    Update.update("lastActivityAt", LocalDateTime.now()),
+                    Post.class);
+            postCache.evictAll(votedCommentPosts);
+            feedRanking.refresh(votedCommentPosts);
+        }
+
+        changes.forEach((authorId, change) -> reputationLedger.record(authorId, change, reason));
+    }
+
+    private void resolveReputation(Vote.TargetType targetType, Map<String, CounterDelta> targets,
+                                   Map<String, Integer> changes, Set<Object> postIds) {
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Class<?> entityClass = targetType == Vote.TargetType.POST ? Post.class : Comment.class;
+        Query query = Query.query(Criteria.where("_id").in(targets.keySet()));
+        query.fields().include("author");
+        if (postIds != null) {
+            query.fields().include("post");
+        }
+
+        for (Document target : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(entityClass))) {
+            CounterDelta delta = targets.get(target.get("_id").toString());
+            if (delta == null) {
+                continue;
+            }
+            if (target.get("author") instanceof DBRef authorRef) {
+                changes.merge(authorRef.getId().toString(),
+                    VoteService.reputationDelta(targetType, delta.upvotes(), delta.downvotes()), Integer::sum);
+            }
+            if (postIds != null && target.get("post") instanceof DBRef postRef) {
+                postIds.add(postRef.getId());
+            }
+        }
+    }
+}
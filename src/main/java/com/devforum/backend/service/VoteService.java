@@ -1,14 +1,38 @@
 package com.devforum.backend.service;
 
+import com.devforum.backend.dto.BatchVoteResult;
+import com.devforum.backend.dto.VoteRequest;
 import com.devforum.backend.entity.*;
 import com.devforum.backend.repository.*;
+import com.mongodb.DBRef;
+import com.mongodb.bulk.BulkWriteResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -16,9 +40,19 @@ import java.util.Optional;
 public class VoteService {
     
     private final VoteRepository voteRepository;
-    private final PostRepository postRepository;
-    private final CommentRepository commentRepository;
     private final UserService userService;
+    private final MongoTemplate mongoTemplate;
+    private final VoteAggregationBuffer voteAggregationBuffer;
+    private final UserVoteCache userVoteCache;
+    private final ReputationLedger reputationLedger;
+    private final VoteCounterWriter voteCounterWriter;
+    private final FeedRanking feedRanking;
+    private final PostCache postCache;
+    private final CommentTreeCache commentTreeCache;
+    private final VoteUserIdMigration voteUserIdMigration;
+    
+    @Value("${app.votes.batch.max-size:100}")
+    private int maxBatchSize;
     
     @Transactional
     public String vote(String targetId, Vote.TargetType targetType, Vote.VoteType voteType) {
@@ -26,29 +60,30 @@ public class VoteService {
                 .orElseThrow(() -> new RuntimeException("User not authenticated"));
         
         // Check if user has already voted
-        Optional<Vote> existingVote = voteRepository.findByUserAndTargetTypeAndTargetId(
-            currentUser, targetType, targetId);
+        Query mine = Query.query(Criteria.where("targetType").is(targetType).and("targetId").is(targetId))
+                .addCriteria(byVoter(currentUser));
+        Optional<Vote> existingVote = Optional.ofNullable(mongoTemplate.findOne(mine, Vote.class));
         
         if (existingVote.isPresent()) {
             Vote vote = existingVote.get();
             if (vote.getVoteType() == voteType) {
                 // Same vote - remove it (toggle off)
-                voteRepository.delete(vote);
-                updateTargetVoteCounts(targetId, targetType);
-                updateUserReputation(targetId, targetType, voteType, false);
+                removeVote(vote);
+                applyVoteDelta(targetId, targetType, 
+                    upvoteDelta(voteType, -1), downvoteDelta(voteType, -1));
+                userVoteCache.recordVote(currentUser.getId(), targetType, targetId, null);
                 log.info("Vote removed: {} {} on {}", currentUser.getUsername(), voteType, targetId);
                 return "removed";
             } else {
                 // Different vote - update it
                 Vote.VoteType oldVoteType = vote.getVoteType();
-                vote.setVoteType(voteType);
-                vote.setUpdatedAt(LocalDateTime.now());
-                voteRepository.save(vote);
-                updateTargetVoteCounts(targetId, targetType);
+                changeVoteType(vote, voteType);
                 
-                // Update reputation (remove old vote effect, add new vote effect)
-                updateUserReputation(targetId, targetType, oldVoteType, false);
-                updateUserReputation(targetId, targetType, voteType, true);
+                // Remove old vote effect, add new vote effect
+                applyVoteDelta(targetId, targetType, 
+                    upvoteDelta(oldVoteType, -1) + upvoteDelta(voteType, 1),
+                    downvoteDelta(oldVoteType, -1) + downvoteDelta(voteType, 1));
+                userVoteCache.recordVote(currentUser.getId(), targetType, targetId, voteType);
                 
                 log.info("Vote changed: {} {} -> {} on {}", currentUser.getUsername(), 
                     oldVoteType, voteType, targetId);
@@ -57,84 +92,329 @@ public class VoteService {
         } else {
             // New vote
             Vote vote = Vote.builder()
-                    .user(currentUser)
+                    .userId(currentUser.getId())
                     .targetId(targetId)
                     .targetType(targetType)
                     .voteType(voteType)
                     .createdAt(LocalDateTime.now())
                     .build();
             
-            voteRepository.save(vote);
-            updateTargetVoteCounts(targetId, targetType);
-            updateUserReputation(targetId, targetType, voteType, true);
+            insertVote(vote);
+            applyVoteDelta(targetId, targetType, 
+                upvoteDelta(voteType, 1), downvoteDelta(voteType, 1));
+            userVoteCache.recordVote(currentUser.getId(), targetType, targetId, voteType);
             
             log.info("New vote: {} {} on {}", currentUser.getUsername(), voteType, targetId);
             return "created";
         }
     }
     
-    private void updateTargetVoteCounts(String targetId, Vote.TargetType targetType) {
-        long upvotes = voteRepository.countUpvotes(targetType, targetId);
-        long downvotes = voteRepository.countDownvotes(targetType, targetId);
+    /**
+     * Applies a batch of votes for the current user. Votes are grouped by target and applied
+     * in submission order against the user's existing votes (resolved with one query), then the
+     * resulting vote rows, counters and reputation are written with unordered bulk writes.
+     */
+    @Transactional
+    public List<BatchVoteResult> voteBatch(List<VoteRequest> requests) {
+        User currentUser = userService.getCurrentUser()
+                .orElseThrow(() -> new RuntimeException("User not authenticated"));
         
-        if (targetType == Vote.TargetType.POST) {
-            postRepository.findById(targetId).ifPresent(post -> {
-                post.setUpvotes((int) upvotes);
-                post.setDownvotes((int) downvotes);
-                post.setLastActivityAt(LocalDateTime.now());
-                postRepository.save(post);
-            });
-        } else if (targetType == Vote.TargetType.COMMENT) {
-            commentRepository.findById(targetId).ifPresent(comment -> {
-                comment.setUpvotes((int) upvotes);
-                comment.setDownvotes((int) downvotes);
-                commentRepository.save(comment);
-                
-                // Update post activity time when comment is voted on
-                if (comment.getPost() != null) {
-                    comment.getPost().setLastActivityAt(LocalDateTime.now());
-                    postRepository.save(comment.getPost());
+        if (requests.size() > maxBatchSize) {
+            throw new RuntimeException("A batch can contain at most " + maxBatchSize + " votes");
+        }
+        
+        // Group requests by target, keeping the order they were submitted in
+        Map<VoteTarget, List<Integer>> requestsByTarget = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            VoteRequest request = requests.get(i);
+            VoteTarget target = new VoteTarget(
+                Vote.TargetType.valueOf(request.getTargetType()), request.getTargetId());
+            requestsByTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(i);
+        }
+        
+        Map<VoteTarget, Vote> existingVotes = findExistingVotes(currentUser, requestsByTarget.keySet());
+        
+        BatchVoteResult[] results = new BatchVoteResult[requests.size()];
+        BulkOperations voteOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vote.class);
+        List<VoteTransition> transitions = new ArrayList<>();
+        
+        for (Map.Entry<VoteTarget, List<Integer>> entry : requestsByTarget.entrySet()) {
+            VoteTarget target = entry.getKey();
+            Vote existingVote = existingVotes.get(target);
+            Vote.VoteType initialState = existingVote != null ? existingVote.getVoteType() : null;
+            Vote.VoteType state = initialState;
+            
+            for (int index : entry.getValue()) {
+                VoteRequest request = requests.get(index);
+                Vote.VoteType voteType = Vote.VoteType.valueOf(request.getVoteType());
+                String action;
+                if (state == voteType) {
+                    state = null;
+                    action = "removed";
+                } else {
+                    action = state == null ? "created" : "updated";
+                    state = voteType;
+                }
+                results[index] = BatchVoteResult.success(request, action);
+            }
+            
+            if (state == initialState) {
+                continue;
+            }
+            
+            if (existingVote == null) {
+                voteOps.insert(Vote.builder()
+                        .userId(currentUser.getId())
+                        .targetId(target.targetId())
+                        .targetType(target.targetType())
+                        .voteType(state)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+            } else {
+                Query query = Query.query(Criteria.where("_id").is(existingVote.getId())
+                        .and("voteType").is(initialState));
+                if (state == null) {
+                    voteOps.remove(query);
+                } else {
+                    voteOps.updateOne(query, new Update()
+                            .set("voteType", state)
+                            .set("updatedAt", LocalDateTime.now()));
                 }
-            });
+            }
+            transitions.add(new VoteTransition(target, initialState, state));
+        }
+        
+        Set<VoteTarget> conflicts = executeVoteWrites(voteOps, transitions);
+        
+        List<VoteCounterWriter.CounterDelta> deltas = new ArrayList<>();
+        for (VoteTransition transition : transitions) {
+            VoteTarget target = transition.target();
+            if (conflicts.contains(target)) {
+                requestsByTarget.get(target).forEach(index -> results[index] = BatchVoteResult.failure(
+                    requests.get(index), "Vote was modified concurrently, please retry"));
+                continue;
+            }
+            
+            deltas.add(new VoteCounterWriter.CounterDelta(target.targetType(), target.targetId(),
+                upvoteDelta(transition.to(), 1) + upvoteDelta(transition.from(), -1),
+                downvoteDelta(transition.to(), 1) + downvoteDelta(transition.from(), -1)));
+            userVoteCache.recordVote(currentUser.getId(), target.targetType(), target.targetId(), transition.to());
+        }
+        
+        if (voteAggregationBuffer.isEnabled()) {
+            deltas.forEach(delta -> voteAggregationBuffer.record(
+                delta.targetType(), delta.targetId(), delta.upvotes(), delta.downvotes()));
+        } else if (!deltas.isEmpty()) {
+            List<VoteCounterWriter.CounterDelta> failed = voteCounterWriter.writeCounters(deltas);
+            if (!failed.isEmpty()) {
+                // The vote rows are written; counter reconciliation repairs the counters
+                log.warn("Batch vote counters not applied for {} targets", failed.size());
+                deltas.removeAll(new HashSet<>(failed));
+            }
+            voteCounterWriter.recordReputation(deltas, "VOTE_BATCH");
+        }
+        
+        log.info("Batch vote: {} applied {} votes on {} targets", 
+            currentUser.getUsername(), requests.size(), requestsByTarget.size());
+        return List.of(results);
+    }
+    
+    private Map<VoteTarget, Vote> findExistingVotes(User user, Collection<VoteTarget> targets) {
+        Query query = Query.query(Criteria.where("targetId").in(targets.stream().map(VoteTarget::targetId).toList()))
+                .addCriteria(byVoter(user));
+        query.fields().include("targetId", "targetType", "voteType");
+        
+        Map<VoteTarget, Vote> votes = new HashMap<>();
+        for (Vote vote : mongoTemplate.find(query, Vote.class)) {
+            votes.put(new VoteTarget(vote.getTargetType(), vote.getTargetId()), vote);
+        }
+        return votes;
+    }
+    
+    // Returns the targets whose vote row could not be written as planned. Duplicate inserts are
+    // reported per operation; for conditional removes/updates the driver only reports totals,
+    // so a shortfall marks every transition of that kind as conflicting and skips its delta
+    // (any drift this leaves is repaired by counter reconciliation).
+    private Set<VoteTarget> executeVoteWrites(BulkOperations voteOps, List<VoteTransition> transitions) {
+        Set<VoteTarget> conflicts = new HashSet<>();
+        if (transitions.isEmpty()) {
+            return conflicts;
+        }
+        
+        BulkWriteResult result;
+        try {
+            result = voteOps.execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> conflicts.add(transitions.get(error.getIndex()).target()));
+            result = e.getResult();
+        }
+        
+        long expectedRemoves = transitions.stream().filter(t -> t.from() != null && t.to() == null).count();
+        long expectedUpdates = transitions.stream().filter(t -> t.from() != null && t.to() != null).count();
+        
+        if (result.getDeletedCount() < expectedRemoves) {
+            transitions.stream().filter(t -> t.from() != null && t.to() == null)
+                    .forEach(t -> conflicts.add(t.target()));
+        }
+        if (result.getModifiedCount() < expectedUpdates) {
+            transitions.stream().filter(t -> t.from() != null && t.to() != null)
+                    .forEach(t -> conflicts.add(t.target()));
+        }
+        return conflicts;
+    }
+    
+    // Until the userId migration is done, a vote may still name its voter only by the user DBRef;
+    // missing it would let the user vote again and count twice
+    private Criteria byVoter(User user) {
+        if (!voteUserIdMigration.legacyVotesRemain()) {
+            return Criteria.where("userId").is(user.getId());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("userId").is(user.getId()),
+                Criteria.where("user.$id").is(new ObjectId(user.getId())));
+    }
+    
+    private record VoteTarget(Vote.TargetType targetType, String targetId) {
+    }
+    
+    private record VoteTransition(VoteTarget target, Vote.VoteType from, Vote.VoteType to) {
+    }
+    
+    // The vote row is the source of truth for counter deltas: each transition below only
+    // succeeds for the request that actually performed it, so concurrent duplicates never
+    // apply the same delta twice.
+    private void insertVote(Vote vote) {
+        try {
+            voteRepository.insert(vote);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("Vote was modified concurrently, please retry");
         }
     }
     
-    private void updateUserReputation(String targetId, Vote.TargetType targetType, 
-                                     Vote.VoteType voteType, boolean isAdding) {
-        String authorId = null;
-        int reputationChange = 0;
+    private void removeVote(Vote vote) {
+        Query query = Query.query(Criteria.where("_id").is(vote.getId())
+                .and("voteType").is(vote.getVoteType()));
         
+        if (mongoTemplate.remove(query, Vote.class).getDeletedCount() == 0) {
+            throw new RuntimeException("Vote was modified concurrently, please retry");
+        }
+    }
+    
+    private void changeVoteType(Vote vote, Vote.VoteType newVoteType) {
+        Query query = Query.query(Criteria.where("_id").is(vote.getId())
+                .and("voteType").is(vote.getVoteType()));
+        Update update = new Update()
+                .set("voteType", newVoteType)
+                .set("updatedAt", LocalDateTime.now());
+        
+        if (mongoTemplate.updateFirst(query, update, Vote.class).getModifiedCount() == 0) {
+            throw new RuntimeException("Vote was modified concurrently, please retry");
+        }
+        vote.setVoteType(newVoteType);
+    }
+    
+    /**
+     * Reputation earned by a target's author for the given counter changes.
+     */
+    public static int reputationDelta(Vote.TargetType targetType, int upvoteDelta, int downvoteDelta) {
         if (targetType == Vote.TargetType.POST) {
-            Optional<Post> post = postRepository.findById(targetId);
-            if (post.isPresent()) {
-                authorId = post.get().getAuthor().getId();
-                reputationChange = voteType == Vote.VoteType.UPVOTE ? 10 : -2; // Posts give more reputation
-            }
-        } else if (targetType == Vote.TargetType.COMMENT) {
-            Optional<Comment> comment = commentRepository.findById(targetId);
-            if (comment.isPresent()) {
-                authorId = comment.get().getAuthor().getId();
-                reputationChange = voteType == Vote.VoteType.UPVOTE ? 5 : -1; // Comments give less reputation
-            }
+            return upvoteDelta * 10 - downvoteDelta * 2; // Posts give more reputation
+        }
+        return upvoteDelta * 5 - downvoteDelta; // Comments give less reputation
+    }
+    
+    private static int upvoteDelta(Vote.VoteType voteType, int delta) {
+        return voteType == Vote.VoteType.UPVOTE ? delta : 0;
+    }
+    
+    private static int downvoteDelta(Vote.VoteType voteType, int delta) {
+        return voteType == Vote.VoteType.DOWNVOTE ? delta : 0;
+    }
+    
+    private void applyVoteDelta(String targetId, Vote.TargetType targetType, 
+                                int upvoteDelta, int downvoteDelta) {
+        if (voteAggregationBuffer.isEnabled()) {
+            // Write-behind mode: counters and reputation are applied by the next bulk flush
+            voteAggregationBuffer.record(targetType, targetId, upvoteDelta, downvoteDelta);
+            return;
         }
         
-        if (authorId != null) {
-            if (!isAdding) {
-                reputationChange = -reputationChange; // Reverse the change when removing vote
-            }
-            userService.updateReputation(authorId, reputationChange);
+        Document target = applyVoteCounterDelta(targetId, targetType, upvoteDelta, downvoteDelta);
+        
+        // The counter update already returned the author, so no second lookup of the target
+        if (target != null && target.get("author") instanceof DBRef authorRef) {
+            reputationLedger.record(authorRef.getId().toString(),
+                reputationDelta(targetType, upvoteDelta, downvoteDelta), targetType.name() + "_VOTE");
+        }
+    }
+    
+    // Returns the updated target as a raw document (author and post references only), so the
+    // references come back as plain DBRefs instead of resolving the author, post and parent chain
+    private Document applyVoteCounterDelta(String targetId, Vote.TargetType targetType, 
+                                           int upvoteDelta, int downvoteDelta) {
+        Query query = Query.query(Criteria.where("_id").is(targetId));
+        query.fields().include("author");
+        Update counters = new Update()
+                .inc("upvotes", upvoteDelta)
+                .inc("downvotes", downvoteDelta);
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        
+        if (targetType == Vote.TargetType.POST) {
+            // Pipeline update so the hot rank is recomputed from the new counters in the same write
+            FeedRanking.includeRankingFields(query);
+            Document post = mongoTemplate.findAndModify(query, 
+                    HotRank.increment(upvoteDelta, downvoteDelta, 0, LocalDateTime.now()), 
+                    options, Document.class, mongoTemplate.getCollectionName(Post.class));
+            postCache.evict(targetId);
+            feedRanking.onPostChanged(post);
+            return post;
+        }
+        
+        query.fields().include("post").include("upvotes").include("downvotes");
+        Document comment = mongoTemplate.findAndModify(query, counters, 
+                options, Document.class, mongoTemplate.getCollectionName(Comment.class));
+        
+        // Update post activity time when comment is voted on
+        if (comment != null && comment.get("post") instanceof DBRef postRef) {
+            Query postQuery = Query.query(Criteria.where("_id").is(postRef.getId()));
+            FeedRanking.includeRankingFields(postQuery);
+            feedRanking.onPostChanged(mongoTemplate.findAndModify(postQuery,
+                    Update.update("lastActivityAt", LocalDateTime.now()),
+                    options, Document.class, mongoTemplate.getCollectionName(Post.class)));
+            postCache.evict(postRef.getId().toString());
+            commentTreeCache.onVoteCountsChanged(postRef.getId().toString(), targetId,
+                    comment.getInteger("upvotes", 0), comment.getInteger("downvotes", 0));
         }
+        return comment;
     }
     
     public String getUserVote(String targetId, Vote.TargetType targetType) {
+        return getUserVotes(List.of(targetId), targetType).get(targetId);
+    }
+    
+    /**
+     * Resolves the current user's votes for a page of targets. Answers come from the
+     * per-user vote cache where possible; the rest are loaded with a single $in query.
+     * Targets the user has not voted on are absent from the returned map.
+     */
+    public Map<String, String> getUserVotes(Collection<String> targetIds, Vote.TargetType targetType) {
         User currentUser = userService.getCurrentUser().orElse(null);
-        if (currentUser == null) {
-            return null;
+        if (currentUser == null || targetIds.isEmpty()) {
+            return Map.of();
         }
         
-        Optional<Vote> vote = voteRepository.findByUserAndTargetTypeAndTargetId(
-            currentUser, targetType, targetId);
+        return userVoteCache.getUserVotes(currentUser.getId(), targetType, targetIds,
+                missing -> loadUserVotes(currentUser, targetType, missing));
+    }
+    
+    private Map<String, String> loadUserVotes(User user, Vote.TargetType targetType, Collection<String> targetIds) {
+        Query query = Query.query(Criteria.where("targetType").is(targetType)
+                .and("targetId").in(targetIds))
+                .addCriteria(byVoter(user));
+        // Only the vote state is needed, so skip resolving the user reference on every row
+        query.fields().include("targetId", "voteType");
         
-        return vote.map(v -> v.getVoteType().name()).orElse(null);
+        return mongoTemplate.find(query, Vote.class).stream()
+                .collect(Collectors.toMap(Vote::getTargetId, v -> v.getVoteType().name(), (a, b) -> a));
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import com.mongodb.DBRef;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves legacy votes from the {@code user} DBRef to the plain {@code userId} field. Documents
+ * are processed in _id order and in bounded batches; since migrated votes stop matching the
+ * legacy filter, an interrupted run simply picks up the remainder on its next start.
+ * Index sizes and a sampled lookup latency are captured before and after for comparison.
+ * Until no legacy vote is left, {@link VoteService} also matches voters by the DBRef id, and a
+ * legacy vote dropped as a duplicate of a userId vote has its counter change reversed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteUserIdMigration {
+
+    private static final String VOTES = "votes";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final VoteCounterWriter voteCounterWriter;
+
+    @Value("${app.migrations.vote-user-id.enabled:false}")
+    private boolean runOnStartup;
+
+    @Value("${app.migrations.vote-user-id.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.migrations.vote-user-id.benchmark-samples:200}")
+    private int benchmarkSamples;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder duplicatesRemoved = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile ObjectId lastMigratedId;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+    private volatile Map<String, Object> before;
+    private volatile Map<String, Object> after;
+
+    // Assumed until a check finds none, so lookups never miss a vote stored the old way
+    private volatile boolean legacyVotesRemain = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        legacyVotesRemain = hasLegacyVotes();
+        if (runOnStartup && legacyVotesRemain) {
+            start();
+        }
+    }
+
+    public boolean legacyVotesRemain() {
+        return legacyVotesRemain;
+    }
+
+    /**
+     * Starts the migration in the background; returns false if a run is already in progress.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "vote-user-id-migration");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("remainingLegacyVotes", mongoTemplate.count(legacyVotesQuery(), VOTES));
+        status.put("migrated", migrated.sum());
+        status.put("duplicatesRemoved", duplicatesRemoved.sum());
+        status.put("batches", batches.sum());
+        status.put("lastMigratedId", lastMigratedId != null ? lastMigratedId.toHexString() : null);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        status.put("before", before);
+        status.put("after", after);
+        return status;
+    }
+
+    private void run() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        lastMigratedId = null;
+        try {
+            before = snapshot("user");
+            log.info("Starting vote userId migration, {} legacy votes", before.get("legacyVotes"));
+
+            // The old unique index would treat every migrated vote on a target as a null user;
+            // MongoConfig drops it at startup, this covers a collection restored since
+            dropLegacyIndexes();
+            while (migrateBatch() > 0) {
+                batches.increment();
+            }
+            legacyVotesRemain = hasLegacyVotes();
+
+            after = snapshot("userId");
+            finishedAt = LocalDateTime.now();
+            log.info("Vote userId migration finished: {} migrated, {} duplicates removed",
+                    migrated.sum(), duplicatesRemoved.sum());
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Vote userId migration stopped after {}: {}", lastMigratedId, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int migrateBatch() {
+        Query query = legacyVotesQuery();
+        if (lastMigratedId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastMigratedId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("_id").include("user");
+
+        List<Document> legacy = mongoTemplate.find(query, Document.class, VOTES);
+        if (legacy.isEmpty()) {
+            return 0;
+        }
+
+        List<ObjectId> ids = new ArrayList<>(legacy.size());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VOTES);
+        for (Document vote : legacy) {
+            ObjectId id = vote.getObjectId("_id");
+            DBRef user = vote.get("user", DBRef.class);
+            ids.add(id);
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id)),
+                    new Update().set("userId", user.getId()).unset("user"));
+        }
+
+        try {
+            migrated.add(bulk.execute().getModifiedCount());
+        } catch (BulkOperationException e) {
+            migrated.add(e.getResult().getModifiedCount());
+            List<ObjectId> duplicates = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(ids.get(error.getIndex()));
+            }
+            removeDuplicates(duplicates);
+        }
+
+        lastMigratedId = ids.get(ids.size() - 1);
+        return legacy.size();
+    }
+
+    // The user already voted on the target through the new field, which wins. Both rows were
+    // counted, so the counters and reputation lose the dropped row's vote again
+    private void removeDuplicates(List<ObjectId> duplicates) {
+        List<VoteCounterWriter.CounterDelta> reversals = new ArrayList<>();
+        for (ObjectId id : duplicates) {
+            Document removed = mongoTemplate.findAndRemove(
+                    Query.query(Criteria.where("_id").is(id)), Document.class, VOTES);
+            if (removed == null) {
+                continue;
+            }
+            duplicatesRemoved.increment();
+            boolean upvote = Vote.VoteType.UPVOTE.name().equals(removed.getString("voteType"));
+            reversals.add(new VoteCounterWriter.CounterDelta(
+                    Vote.TargetType.valueOf(removed.getString("targetType")), removed.getString("targetId"),
+                    upvote ? -1 : 0, upvote ? 0 : -1));
+        }
+        if (reversals.isEmpty()) {
+            return;
+        }
+
+        List<VoteCounterWriter.CounterDelta> failed = voteCounterWriter.writeCounters(reversals);
+        if (!failed.isEmpty()) {
+            // Counter reconciliation repairs these from the vote rows
+            log.warn("Could not reverse counters of {} duplicate legacy votes", failed.size());
+            reversals.removeAll(new HashSet<>(failed));
+        }
+        voteCounterWriter.recordReputation(reversals, "VOTE_DEDUPLICATED");
+    }
+
+    private void dropLegacyIndexes() {
+        for (IndexInfo index : mongoTemplate.indexOps(VOTES).getIndexInfo()) {
+            if (index.getIndexFields().stream().anyMatch(field -> "user".equals(field.getKey()))) {
+                mongoTemplate.indexOps(VOTES).dropIndex(index.getName());
+                log.info("Dropped legacy vote index {}", index.getName());
+            }
+        }
+    }
+
+    private boolean hasLegacyVotes() {
+        return mongoTemplate.exists(legacyVotesQuery(), VOTES);
+    }
+
+    private Query legacyVotesQuery() {
+        return new Query(Criteria.where("userId").exists(false).and("user").exists(true));
+    }
+
+    // Index sizes from collStats plus the average latency of point lookups on the given key
+    private Map<String, Object> snapshot(String userField) {
+        Document collStats = mongoTemplate.executeCommand(new Document("collStats", VOTES));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("capturedAt", LocalDateTime.now());
+        snapshot.put("legacyVotes", mongoTemplate.count(legacyVotesQuery(), VOTES));
+        snapshot.put("totalIndexSizeBytes", collStats.get("totalIndexSize"));
+        snapshot.put("indexSizes", collStats.get("indexSizes"));
+        snapshot.put("avgLookupMicros", sampleLookupMicros(userField));
+        return snapshot;
+    }
+
+    private Double sampleLookupMicros(String userField) {
+        List<Document> samples = mongoTemplate.aggregate(
+                Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(userField).exists(true)),
+                        Aggregation.sample(benchmarkSamples)),
+                VOTES, Document.class).getMappedResults();
+        if (samples.isEmpty()) {
+            return null;
+        }
+
+        long totalNanos = 0;
+        for (Document sample : samples) {
+            Query lookup = Query.query(Criteria.where(userField).is(sample.get(userField))
+                    .and("targetType").is(sample.get("targetType"))
+                    .and("targetId").is(sample.get("targetId")));
+            long started = System.nanoTime();
+            mongoTemplate.findOne(lookup, Document.class, VOTES);
+            totalNanos += System.nanoTime() - started;
+        }
+        return totalNanos / 1000.0 / samples.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.devforum.backend;
+
+import com.devforum.backend.entity.User;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application booted against a throwaway MongoDB for JMH benchmarks. Commands sent to
+ * Mongo are counted per calling thread, so a benchmark can report round trips per operation
+ * without picking up scheduled background work.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private static final ThreadLocal<long[]> COMMANDS = new ThreadLocal<>();
+
+    private final MongoDBContainer mongo;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(MongoDBContainer mongo, ConfigurableApplicationContext context) {
+        this.mongo = mongo;
+        this.context = context;
+    }
+
+    /**
+     * Starts MongoDB and the application; extra properties are given as "key=value".
+     */
+    public static BenchmarkContext start(String... properties) {
+        MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+        mongo.start();
+
+        List<String> all = new ArrayList<>(List.of(
+                "spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("devforum"),
+                "server.port=0",
+                "logging.level.com.devforum=WARN"));
+        all.addAll(List.of(properties));
+
+        CommandListener counter = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                long[] commands = COMMANDS.get();
+                if (commands != null) {
+                    commands[0]++;
+                }
+            }
+        };
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DevforumBackendApplication.class)
+                .properties(all.toArray(String[]::new))
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("benchmarkCommandCounter",
+                        (MongoClientSettingsBuilderCustomizer) settings -> settings.addCommandListener(counter)))
+                .run();
+        return new BenchmarkContext(mongo, context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    /**
+     * Runs the action and returns how many commands it sent to Mongo from this thread.
+     */
+    public static long countCommands(Runnable action) {
+        long[] commands = new long[1];
+        long[] outer = COMMANDS.get();
+        COMMANDS.set(commands);
+        try {
+            action.run();
+        } finally {
+            COMMANDS.set(outer);
+        }
+        return commands[0];
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        mongo.stop();
+    }
+}
@@ -0,0 +1,120 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.CommentDTO;
+import com.devforum.backend.entity.Comment;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree assembly for a post's comment thread of a given size and shape. Rows arrive shuffled,
+ * as they do from Mongo, and the tree is built with a depth limit no shape reaches, so every
+ * comment is placed. Not run by the test phase; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentTreeBenchmark {
+
+    public enum Shape {
+        // A third top-level, the rest replying to any earlier comment
+        RANDOM,
+        // Every comment replies to the one before: one path as deep as the thread
+        CHAIN,
+        // One top-level comment with every other comment replying to it
+        FLAT,
+        // Complete 4-ary tree, about log4(n) levels
+        BALANCED,
+        // Most replies pile onto a few hot comments, the rest spread thin
+        HOT_PARENT
+    }
+
+    private static final int FAN_OUT = 4;
+    private static final int HOT_PARENTS = 10;
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int comments;
+
+    @Param({"RANDOM", "CHAIN", "FLAT", "BALANCED", "HOT_PARENT"})
+    private Shape shape;
+
+    @Param({"SCORE", "OLDEST"})
+    private CommentTree.Order order;
+
+    private List<Comment> thread;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        User author = User.builder().id("u1").username("author").build();
+        Post post = Post.builder().id("p1").build();
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+
+        thread = new ArrayList<>(comments);
+        for (int i = 0; i < comments; i++) {
+            int parentIndex = parentIndex(i, random);
+            Comment parent = parentIndex >= 0 ? thread.get(parentIndex) : null;
+            thread.add(Comment.builder()
+                    .id(String.format("c%06d", i))
+                    .content("Comment " + i)
+                    .author(author)
+                    .post(post)
+                    .parentComment(parent)
+                    // Only the last ancestor is read; full paths would be quadratic on a deep chain
+                    .ancestors(parent != null ? List.of(parent.getId()) : List.of())
+                    .level(parent != null ? parent.getLevel() + 1 : 0)
+                    .upvotes(random.nextInt(50))
+                    .createdAt(start.plusSeconds(i))
+                    .build());
+        }
+        // Rows arrive in index order, not thread order
+        Collections.shuffle(thread, random);
+    }
+
+    // Index of the earlier comment that comment i replies to, or -1 for a top-level comment
+    private int parentIndex(int i, Random random) {
+        if (i == 0) {
+            return -1;
+        }
+        return switch (shape) {
+            case RANDOM -> random.nextInt(3) > 0 ? random.nextInt(i) : -1;
+            case CHAIN -> i - 1;
+            case FLAT -> 0;
+            case BALANCED -> (i - 1) / FAN_OUT;
+            case HOT_PARENT -> random.nextInt(5) > 0 ? random.nextInt(Math.min(i, HOT_PARENTS)) : random.nextInt(i);
+        };
+    }
+
+    @Benchmark
+    public List<CommentDTO> build() {
+        return CommentTree.build(new ArrayList<>(thread), order, comments, Map.of());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CommentTreeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
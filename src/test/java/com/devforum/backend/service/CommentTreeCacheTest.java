@@ -0,0 +1,92 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Comment;
+import com.devforum.backend.entity.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommentTreeCacheTest {
+
+    private static final int MAX_COMMENTS_PER_THREAD = 3;
+
+    private CommentTreeCache cache;
+    private String postId;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Post.class)).thenReturn("posts");
+        cache = new CommentTreeCache(mongoTemplate, mock(KeysetPager.class));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxComments", 1_000L);
+        ReflectionTestUtils.setField(cache, "maxCommentsPerThread", MAX_COMMENTS_PER_THREAD);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        cache.init();
+
+        // Loads an empty thread into the cache
+        postId = new ObjectId().toHexString();
+        assertThat(firstPage()).isPresent();
+    }
+
+    @Test
+    void patchedThreadIsWeighedAgain() {
+        cache.onCommentCreated(comment());
+        cache.onCommentCreated(comment());
+
+        assertThat(threads().policy().eviction().orElseThrow().weightOf(postId)).hasValue(2);
+    }
+
+    @Test
+    void patchKeepsTheTimeLeftFromTheLoad() {
+        Duration afterLoad = threads().policy().expireVariably().orElseThrow().getExpiresAfter(postId).orElseThrow();
+
+        cache.onCommentCreated(comment());
+
+        Duration afterPatch = threads().policy().expireVariably().orElseThrow().getExpiresAfter(postId).orElseThrow();
+        assertThat(afterPatch).isLessThanOrEqualTo(afterLoad);
+    }
+
+    @Test
+    void threadGrownPastTheCapIsNoLongerServed() {
+        for (int i = 0; i < MAX_COMMENTS_PER_THREAD; i++) {
+            cache.onCommentCreated(comment());
+        }
+        assertThat(firstPage()).isPresent();
+
+        cache.onCommentCreated(comment());
+
+        assertThat(firstPage()).isEmpty();
+        assertThat(cache.getStats()).containsEntry("oversizedPatches", 1L);
+        assertThat(threads().policy().eviction().orElseThrow().weightOf(postId)).hasValue(1);
+    }
+
+    private Optional<?> firstPage() {
+        return cache.firstPage(postId, CommentTree.Order.OLDEST, 3, 20, 10, 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, ?> threads() {
+        return (Cache<String, ?>) ReflectionTestUtils.getField(cache, "threads");
+    }
+
+    private Comment comment() {
+        return Comment.builder()
+                .id(new ObjectId().toHexString())
+                .content("Reply")
+                .post(Post.builder().id(postId).build())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
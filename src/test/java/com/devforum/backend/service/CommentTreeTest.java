@@ -0,0 +1,189 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.CommentDTO;
+import com.devforum.backend.entity.Comment;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentTreeTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final User author = User.builder().id("u1").username("author").build();
+    private final Post post = Post.builder().id("p1").build();
+
+    @Test
+    void nestsRepliesUnderTheirParents() {
+        Comment root = comment("a", null, 0, 0);
+        Comment reply = comment("b", root, 0, 1);
+        Comment nested = comment("c", reply, 0, 2);
+
+        List<CommentDTO> tree = CommentTree.build(List.of(nested, reply, root), CommentTree.Order.OLDEST, 10, Map.of());
+
+        assertThat(ids(tree)).containsExactly("a");
+        assertThat(ids(tree.get(0).getReplies())).containsExactly("b");
+        assertThat(ids(tree.get(0).getReplies().get(0).getReplies())).containsExactly("c");
+    }
+
+    @Test
+    void ordersSiblingsOldestFirstWithIdTieBreak() {
+        List<Comment> comments = List.of(
+                comment("b", null, 0, 1), comment("c", null, 0, 0), comment("a", null, 0, 1));
+
+        List<CommentDTO> tree = CommentTree.build(comments, CommentTree.Order.OLDEST, 10, Map.of());
+
+        assertThat(ids(tree)).containsExactly("c", "a", "b");
+    }
+
+    @Test
+    void ordersSiblingsNewestFirstWithIdTieBreak() {
+        List<Comment> comments = List.of(
+                comment("b", null, 0, 1), comment("c", null, 0, 0), comment("a", null, 0, 1));
+
+        List<CommentDTO> tree = CommentTree.build(comments, CommentTree.Order.NEWEST, 10, Map.of());
+
+        assertThat(ids(tree)).containsExactly("b", "a", "c");
+    }
+
+    @Test
+    void ordersSiblingsByScoreThenAge() {
+        Comment root = comment("r", null, 0, 0);
+        List<Comment> comments = List.of(root,
+                comment("low", root, 1, 1), comment("later", root, 5, 3), comment("earlier", root, 5, 2));
+
+        List<CommentDTO> tree = CommentTree.build(comments, CommentTree.Order.SCORE, 10, Map.of());
+
+        assertThat(ids(tree.get(0).getReplies())).containsExactly("earlier", "later", "low");
+    }
+
+    @Test
+    void leavesOutRepliesWhoseParentIsMissing() {
+        Comment deletedParent = comment("gone", null, 0, 0);
+        Comment orphan = comment("orphan", deletedParent, 0, 1);
+        Comment orphanReply = comment("orphan-reply", orphan, 0, 2);
+        Comment root = comment("root", null, 0, 3);
+
+        List<CommentDTO> tree = CommentTree.build(List.of(orphan, orphanReply, root), CommentTree.Order.OLDEST, 10, Map.of());
+
+        assertThat(ids(tree)).containsExactly("root");
+        assertThat(tree.get(0).getReplies()).isEmpty();
+    }
+
+    @Test
+    void stopsAtMaxDepth() {
+        List<Comment> chain = new ArrayList<>();
+        Comment parent = null;
+        for (int i = 0; i < 5; i++) {
+            parent = comment("c" + i, parent, 0, i);
+            chain.add(parent);
+        }
+
+        List<CommentDTO> tree = CommentTree.build(chain, CommentTree.Order.OLDEST, 3, Map.of());
+
+        assertThat(depth(tree)).isEqualTo(3);
+        CommentDTO deepest = tree.get(0).getReplies().get(0).getReplies().get(0);
+        assertThat(deepest.getId()).isEqualTo("c2");
+        assertThat(deepest.getReplies()).isEmpty();
+    }
+
+    @Test
+    void assemblesAChainDeeperThanTheCallStack() {
+        int length = 100_000;
+        List<Comment> chain = new ArrayList<>(length);
+        Comment parent = null;
+        for (int i = 0; i < length; i++) {
+            // Only the parent is kept as ancestor; the full path would be quadratic here
+            parent = Comment.builder()
+                    .id("c" + i)
+                    .author(author)
+                    .post(post)
+                    .parentComment(parent)
+                    .ancestors(parent != null ? List.of(parent.getId()) : List.of())
+                    .createdAt(START.plusSeconds(i))
+                    .build();
+            chain.add(parent);
+        }
+
+        List<CommentDTO> tree = CommentTree.build(chain, CommentTree.Order.OLDEST, length, Map.of());
+
+        CommentDTO node = tree.get(0);
+        int depth = 1;
+        while (!node.getReplies().isEmpty()) {
+            node = node.getReplies().get(0);
+            depth++;
+        }
+        assertThat(depth).isEqualTo(length);
+        assertThat(node.getId()).isEqualTo("c" + (length - 1));
+    }
+
+    @Test
+    void buildsTheSubtreeUnderARoot() {
+        Comment root = comment("r", null, 0, 0);
+        Comment reply = comment("a", root, 0, 1);
+        Comment nested = comment("b", reply, 0, 2);
+        Comment other = comment("x", null, 0, 3);
+
+        List<CommentDTO> tree = CommentTree.build(List.of(root, reply, nested, other), "r",
+                CommentTree.Order.OLDEST, 10, Map.of());
+
+        assertThat(ids(tree)).containsExactly("a");
+        assertThat(ids(tree.get(0).getReplies())).containsExactly("b");
+    }
+
+    @Test
+    void attachesTheUserVote() {
+        List<CommentDTO> tree = CommentTree.build(List.of(comment("a", null, 0, 0)), CommentTree.Order.OLDEST, 10,
+                Map.of("a", "UPVOTE"));
+
+        assertThat(tree.get(0).getUserVote()).isEqualTo("UPVOTE");
+    }
+
+    @Test
+    void parentIdFallsBackToTheParentReferenceWithoutAncestors() {
+        Comment root = comment("r", null, 0, 0);
+        Comment legacy = comment("l", root, 0, 1);
+        legacy.setAncestors(null);
+
+        assertThat(CommentTree.parentId(legacy)).isEqualTo("r");
+        assertThat(CommentTree.parentId(root)).isNull();
+    }
+
+    private Comment comment(String id, Comment parent, int upvotes, int minutes) {
+        List<String> ancestors = new ArrayList<>();
+        if (parent != null) {
+            ancestors.addAll(parent.getAncestors());
+            ancestors.add(parent.getId());
+        }
+        return Comment.builder()
+                .id(id)
+                .content("Comment " + id)
+                .author(author)
+                .post(post)
+                .parentComment(parent)
+                .ancestors(ancestors)
+                .level(ancestors.size())
+                .upvotes(upvotes)
+                .createdAt(START.plusMinutes(minutes))
+                .build();
+    }
+
+    private static List<String> ids(List<CommentDTO> nodes) {
+        return nodes.stream().map(CommentDTO::getId).toList();
+    }
+
+    private static int depth(List<CommentDTO> nodes) {
+        int deepest = 0;
+        for (CommentDTO node : nodes) {
+            deepest = Math.max(deepest, 1 + depth(node.getReplies()));
+        }
+        return deepest;
+    }
+}
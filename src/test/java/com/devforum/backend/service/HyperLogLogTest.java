@@ -0,0 +1,128 @@
+package com.devforum.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    // Three standard errors of a 2048-register sketch
+    private static final double TOLERANCE = 0.07;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertThat(sketch.estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(new byte[0]).estimate()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100, 1_000, 10_000, 100_000})
+    void estimatesKnownCardinalities(int distinct) {
+        HyperLogLog sketch = sketchOf(0, distinct);
+
+        assertThat((double) sketch.estimate()).isCloseTo(distinct, within(Math.max(1.0, distinct * TOLERANCE)));
+    }
+
+    @Test
+    void repeatedValuesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 500; i++) {
+                sketch.offer("viewer-" + i);
+            }
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(500, within(500 * TOLERANCE));
+    }
+
+    @Test
+    void fewViewersSerializeSparse() {
+        HyperLogLog sketch = sketchOf(0, 20);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes[0]).isEqualTo((byte) 2);
+        // One 3-byte entry per set register; collisions can only make it shorter
+        assertThat(bytes.length).isLessThanOrEqualTo(1 + 20 * 3);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void manyViewersSerializeDense() {
+        HyperLogLog sketch = sketchOf(0, 50_000);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes[0]).isEqualTo((byte) 1);
+        assertThat(bytes).hasSize(1 + 2048);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void roundTripKeepsEveryRegister() {
+        HyperLogLog sketch = sketchOf(0, 300);
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+
+        // Equal registers serialize identically
+        assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+    }
+
+    @Test
+    void unknownEncodingIsRejected() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{9, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergeOfDisjointSetsEstimatesTheUnion() {
+        HyperLogLog first = sketchOf(0, 6_000);
+        HyperLogLog second = sketchOf(6_000, 4_000);
+
+        first.merge(second);
+
+        assertThat((double) first.estimate()).isCloseTo(10_000, within(10_000 * TOLERANCE));
+    }
+
+    @Test
+    void mergeOfOverlappingSetsCountsSharedViewersOnce() {
+        HyperLogLog first = sketchOf(0, 5_000);
+        HyperLogLog second = sketchOf(2_500, 5_000);
+
+        first.merge(second);
+
+        assertThat((double) first.estimate()).isCloseTo(7_500, within(7_500 * TOLERANCE));
+    }
+
+    @Test
+    void mergeMatchesASketchOfTheUnion() {
+        HyperLogLog merged = sketchOf(0, 800);
+        merged.merge(sketchOf(400, 800));
+
+        assertThat(merged.toBytes()).isEqualTo(sketchOf(0, 1_200).toBytes());
+    }
+
+    @Test
+    void mergingASparseSketchIntoADenseOneAfterARoundTrip() {
+        HyperLogLog dense = HyperLogLog.fromBytes(sketchOf(0, 20_000).toBytes());
+        HyperLogLog sparse = HyperLogLog.fromBytes(sketchOf(20_000, 50).toBytes());
+
+        dense.merge(sparse);
+
+        assertThat((double) dense.estimate()).isCloseTo(20_050, within(20_050 * TOLERANCE));
+    }
+
+    private static HyperLogLog sketchOf(int from, int count) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < from + count; i++) {
+            sketch.offer("viewer-" + i);
+        }
+        return sketch;
+    }
+}
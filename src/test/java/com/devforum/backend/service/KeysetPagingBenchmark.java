@@ -0,0 +1,132 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.BenchmarkContext;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import com.devforum.backend.repository.UserRepository;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The "recent" feed at page 1 and page 10,000 through the cursor endpoint's service method and
+ * through the page-number one, which skips. The cursor for the deep page is the one paging up
+ * to it would have handed out. Needs Docker; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeysetPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int POSTS = 10_000 * PAGE_SIZE + 1_000;
+    private static final int SEED_BATCH = 10_000;
+
+    // The "recent" order of PostService's cursor listing
+    private static final Sort RECENT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id"));
+
+    @Param({"1", "10000"})
+    private int page;
+
+    private BenchmarkContext context;
+    private PostService postService;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        postService = context.bean(PostService.class);
+        MongoTemplate mongoTemplate = context.bean(MongoTemplate.class);
+
+        User author = context.bean(UserRepository.class).save(User.builder()
+                .username("author").email("author@example.com").password("secret").build());
+        seed(mongoTemplate, new DBRef("users", new ObjectId(author.getId())));
+
+        if (page > 1) {
+            // The last row of the previous page, as the cursor listing would have returned it
+            Query previous = new Query(Criteria.where("deleted").is(false)).with(RECENT)
+                    .skip((long) (page - 1) * PAGE_SIZE - 1).limit(1);
+            previous.fields().exclude("body").exclude(Post.COMPRESSED_BODY);
+            Post lastRow = mongoTemplate.findOne(previous, Post.class);
+            cursor = context.bean(KeysetPager.class).cursorAfter(RECENT, lastRow);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object cursor() {
+        return postService.getPostsByCursor("recent", cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object skip() {
+        return postService.getPosts(PageRequest.of(page - 1, PAGE_SIZE, Sort.by("createdAt").descending()), "recent");
+    }
+
+    private static void seed(MongoTemplate mongoTemplate, DBRef author) {
+        long start = System.currentTimeMillis() - POSTS * 1000L;
+        List<Document> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < POSTS; i++) {
+            Date createdAt = new Date(start + i * 1000L);
+            batch.add(new Document("title", "Benchmark post " + i)
+                    .append("body", "Body of benchmark post " + i)
+                    .append("excerpt", "Body of benchmark post " + i)
+                    .append("author", author)
+                    .append("tags", List.of("tag" + (i % 50)))
+                    .append("upvotes", i % 97)
+                    .append("downvotes", i % 13)
+                    .append("commentCount", 0)
+                    .append("viewCount", 0)
+                    .append("pinned", false)
+                    .append("locked", false)
+                    .append("deleted", false)
+                    .append("createdAt", createdAt)
+                    .append("lastActivityAt", createdAt)
+                    .append("hotRank", (double) i));
+            if (batch.size() == SEED_BATCH) {
+                mongoTemplate.insert(batch, "posts");
+                batch = new ArrayList<>(SEED_BATCH);
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, "posts");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KeysetPagingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
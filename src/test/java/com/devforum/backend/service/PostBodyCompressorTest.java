@@ -0,0 +1,53 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.util.BodyCodec;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostBodyCompressorTest {
+
+    private final PostBodyCompressor compressor = new PostBodyCompressor();
+
+    @Test
+    void compressedBodyIsInflatedWhenThePostIsRead() {
+        String body = "Markdown body ".repeat(500);
+        Post post = Post.builder().compressedBody(BodyCodec.deflate(body, 6)).build();
+
+        compressor.onAfterConvert(post, new Document(), "posts");
+
+        assertThat(post.getBody()).isEqualTo(body);
+        assertThat(post.getCompressedBody()).isNull();
+    }
+
+    @Test
+    void compressionStaysOffUnlessUnsearchableBodiesAreAccepted() {
+        String body = "Markdown body ".repeat(500);
+        ReflectionTestUtils.setField(compressor, "enabled", true);
+        ReflectionTestUtils.setField(compressor, "minBytes", 1024);
+        ReflectionTestUtils.setField(compressor, "level", 6);
+        ReflectionTestUtils.setField(compressor, "minSavings", 0.2);
+
+        Document refused = new Document("body", body);
+        compressor.onBeforeSave(new Post(), refused, "posts");
+        assertThat(compressor.isEnabled()).isFalse();
+        assertThat(refused).containsEntry("body", body).doesNotContainKey(Post.COMPRESSED_BODY);
+
+        ReflectionTestUtils.setField(compressor, "allowUnsearchableBodies", true);
+        Document accepted = new Document("body", body);
+        compressor.onBeforeSave(new Post(), accepted, "posts");
+        assertThat(accepted).doesNotContainKey("body").containsKey(Post.COMPRESSED_BODY);
+    }
+
+    @Test
+    void plainBodyIsLeftAlone() {
+        Post post = Post.builder().body("Plain body").build();
+
+        compressor.onAfterConvert(post, new Document(), "posts");
+
+        assertThat(post.getBody()).isEqualTo("Plain body");
+    }
+}
@@ -0,0 +1,158 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserVoteCacheTest {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    @Test
+    void storesStatesPerTargetType() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        String id = new ObjectId().toHexString();
+
+        table.put(id, Vote.TargetType.POST, UserVoteCache.UPVOTE, MAX_ENTRIES);
+        table.put(id, Vote.TargetType.COMMENT, UserVoteCache.DOWNVOTE, MAX_ENTRIES);
+
+        assertThat(table.get(id, Vote.TargetType.POST)).isEqualTo(UserVoteCache.UPVOTE);
+        assertThat(table.get(id, Vote.TargetType.COMMENT)).isEqualTo(UserVoteCache.DOWNVOTE);
+        assertThat(table.get(new ObjectId().toHexString(), Vote.TargetType.POST)).isEqualTo(UserVoteCache.UNKNOWN);
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void updatingAKeyReplacesItsState() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        String id = new ObjectId().toHexString();
+
+        table.put(id, Vote.TargetType.POST, UserVoteCache.UPVOTE, MAX_ENTRIES);
+        table.put(id, Vote.TargetType.POST, UserVoteCache.NO_VOTE, MAX_ENTRIES);
+
+        assertThat(table.get(id, Vote.TargetType.POST)).isEqualTo(UserVoteCache.NO_VOTE);
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void resizeKeepsEveryEntry() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String id = new ObjectId().toHexString();
+            ids.add(id);
+            table.put(id, Vote.TargetType.POST, i % 3, MAX_ENTRIES);
+        }
+
+        assertThat(table.size()).isEqualTo(1000);
+        // Load factor stays at or below three quarters
+        assertThat(table.capacity()).isGreaterThanOrEqualTo(1000 * 4 / 3);
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(table.get(ids.get(i), Vote.TargetType.POST)).isEqualTo(i % 3);
+        }
+    }
+
+    @Test
+    void updateAtTheBoundDoesNotReset() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        List<String> ids = fill(table, 8);
+
+        table.put(ids.get(3), Vote.TargetType.POST, UserVoteCache.DOWNVOTE, 8);
+
+        assertThat(table.size()).isEqualTo(8);
+        assertThat(table.get(ids.get(3), Vote.TargetType.POST)).isEqualTo(UserVoteCache.DOWNVOTE);
+        assertThat(table.get(ids.get(0), Vote.TargetType.POST)).isEqualTo(UserVoteCache.UPVOTE);
+    }
+
+    @Test
+    void newKeyAtTheBoundResetsTheTable() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        List<String> ids = fill(table, 8);
+        String extra = new ObjectId().toHexString();
+
+        table.put(extra, Vote.TargetType.POST, UserVoteCache.DOWNVOTE, 8);
+
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.get(extra, Vote.TargetType.POST)).isEqualTo(UserVoteCache.DOWNVOTE);
+        assertThat(table.get(ids.get(0), Vote.TargetType.POST)).isEqualTo(UserVoteCache.UNKNOWN);
+    }
+
+    @Test
+    void loadedStateIsSkippedAfterAConcurrentWrite() {
+        UserVoteCache.VoteTable table = new UserVoteCache.VoteTable();
+        String id = new ObjectId().toHexString();
+        long writesBeforeLoad = table.writes();
+
+        table.put(id, Vote.TargetType.POST, UserVoteCache.UPVOTE, MAX_ENTRIES);
+        table.putLoaded(id, Vote.TargetType.POST, UserVoteCache.NO_VOTE, MAX_ENTRIES, writesBeforeLoad);
+
+        assertThat(table.get(id, Vote.TargetType.POST)).isEqualTo(UserVoteCache.UPVOTE);
+    }
+
+    @Test
+    void cachesNoVoteAndLoadsOnlyMisses() {
+        UserVoteCache cache = cache(60_000);
+        String voted = new ObjectId().toHexString();
+        String notVoted = new ObjectId().toHexString();
+        List<Collection<String>> loads = new ArrayList<>();
+
+        Map<String, String> first = cache.getUserVotes("u1", Vote.TargetType.POST, List.of(voted, notVoted), ids -> {
+            loads.add(List.copyOf(ids));
+            return Map.of(voted, "UPVOTE");
+        });
+        Map<String, String> second = cache.getUserVotes("u1", Vote.TargetType.POST, List.of(voted, notVoted), ids -> {
+            loads.add(List.copyOf(ids));
+            return Map.of();
+        });
+
+        assertThat(first).containsExactlyEntriesOf(Map.of(voted, "UPVOTE"));
+        assertThat(second).containsExactlyEntriesOf(Map.of(voted, "UPVOTE"));
+        assertThat(loads).hasSize(1);
+    }
+
+    @Test
+    void tablesExpireAfterMaxAgeEvenWhenActive() throws InterruptedException {
+        UserVoteCache cache = cache(20);
+        String id = new ObjectId().toHexString();
+        cache.recordVote("u1", Vote.TargetType.POST, id, Vote.VoteType.UPVOTE);
+        Thread.sleep(50);
+
+        List<Collection<String>> loads = new ArrayList<>();
+        Map<String, String> votes = cache.getUserVotes("u1", Vote.TargetType.POST, List.of(id), ids -> {
+            loads.add(List.copyOf(ids));
+            return Map.of();
+        });
+
+        assertThat(loads).hasSize(1);
+        assertThat(votes).isEmpty();
+    }
+
+    private static List<String> fill(UserVoteCache.VoteTable table, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = new ObjectId().toHexString();
+            ids.add(id);
+            table.put(id, Vote.TargetType.POST, UserVoteCache.UPVOTE, count);
+        }
+        return ids;
+    }
+
+    private static UserVoteCache cache(long maxAgeMs) {
+        UserVoteCache cache = new UserVoteCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxUsers", 100);
+        ReflectionTestUtils.setField(cache, "maxEntriesPerUser", MAX_ENTRIES);
+        ReflectionTestUtils.setField(cache, "idleTtlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxAgeMs", maxAgeMs);
+        return cache;
+    }
+}
@@ -0,0 +1,109 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.entity.Vote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoteAggregationBufferTest {
+
+    private VoteCounterWriter writer;
+    private VoteAggregationBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        writer = mock(VoteCounterWriter.class);
+        buffer = new VoteAggregationBuffer(writer);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxLagMs", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(buffer, "maxPendingTargets", Integer.MAX_VALUE);
+    }
+
+    @Test
+    void requeuesOnlyTheDeltasThatFailed() {
+        VoteCounterWriter.CounterDelta failedDelta =
+                new VoteCounterWriter.CounterDelta(Vote.TargetType.COMMENT, "c1", 0, 1);
+        when(writer.writeCounters(anyCollection())).thenReturn(List.of(failedDelta)).thenReturn(List.of());
+
+        buffer.record(Vote.TargetType.POST, "p1", 2, 0);
+        buffer.record(Vote.TargetType.COMMENT, "c1", 0, 1);
+        buffer.flush();
+
+        assertThat(buffer.hasPending(Vote.TargetType.POST, "p1")).isFalse();
+        assertThat(buffer.hasPending(Vote.TargetType.COMMENT, "c1")).isTrue();
+
+        buffer.flush();
+        List<Collection<VoteCounterWriter.CounterDelta>> writes = capturedWrites(2);
+        assertThat(writes.get(1)).containsExactly(failedDelta);
+        assertThat(buffer.hasPending(Vote.TargetType.COMMENT, "c1")).isFalse();
+    }
+
+    @Test
+    void reputationOfFailedWritesIsNotRecorded() {
+        VoteCounterWriter.CounterDelta failedDelta =
+                new VoteCounterWriter.CounterDelta(Vote.TargetType.POST, "p2", 1, 0);
+        when(writer.writeCounters(anyCollection())).thenReturn(List.of(failedDelta));
+
+        buffer.record(Vote.TargetType.POST, "p1", 1, 0);
+        buffer.record(Vote.TargetType.POST, "p2", 1, 0);
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<VoteCounterWriter.CounterDelta>> reputation = ArgumentCaptor.forClass(Collection.class);
+        verify(writer).recordReputation(reputation.capture(), anyString());
+        assertThat(reputation.getValue())
+                .containsExactly(new VoteCounterWriter.CounterDelta(Vote.TargetType.POST, "p1", 1, 0));
+    }
+
+    @Test
+    void failedReputationIsRetriedOnTheNextFlushWithoutRewritingCounters() {
+        when(writer.writeCounters(anyCollection())).thenReturn(List.of());
+        doThrow(new RuntimeException("lookup failed")).doNothing()
+                .when(writer).recordReputation(anyCollection(), anyString());
+
+        buffer.record(Vote.TargetType.POST, "p1", 1, 0);
+        buffer.flush();
+        buffer.flush();
+
+        verify(writer, times(1)).writeCounters(anyCollection());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<VoteCounterWriter.CounterDelta>> reputation = ArgumentCaptor.forClass(Collection.class);
+        verify(writer, times(2)).recordReputation(reputation.capture(), eq("VOTE_BATCH"));
+        assertThat(reputation.getAllValues().get(1))
+                .containsExactly(new VoteCounterWriter.CounterDelta(Vote.TargetType.POST, "p1", 1, 0));
+
+        buffer.flush();
+        verify(writer, times(2)).recordReputation(any(), anyString());
+    }
+
+    @Test
+    void emptyBufferDoesNotWrite() {
+        buffer.flush();
+        verify(writer, never()).writeCounters(anyCollection());
+        verify(writer, never()).recordReputation(anyCollection(), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<VoteCounterWriter.CounterDelta>> capturedWrites(int count) {
+        ArgumentCaptor<Collection<VoteCounterWriter.CounterDelta>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(writer, times(count)).writeCounters(captor.capture());
+        return new ArrayList<>(captor.getAllValues());
+    }
+}
@@ -0,0 +1,138 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.BenchmarkContext;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import com.devforum.backend.entity.Vote;
+import com.devforum.backend.repository.PostRepository;
+import com.devforum.backend.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mongo round trips and latency of one vote toggle on a post: the current $inc path through
+ * {@link VoteService#vote} against the recount-and-save path it replaced, reproduced here
+ * command for command. Commands per vote are printed after each iteration; reputation ledger
+ * flushes run on their own schedule and are not counted. Needs Docker; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteRoundTripBenchmark {
+
+    private BenchmarkContext context;
+    private VoteService voteService;
+    private MongoTemplate mongoTemplate;
+    private User voter;
+    private String postId;
+
+    private final LongAdder votes = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("app.votes.write-behind.enabled=false");
+        voteService = context.bean(VoteService.class);
+        mongoTemplate = context.bean(MongoTemplate.class);
+
+        UserRepository users = context.bean(UserRepository.class);
+        User author = users.save(User.builder()
+                .username("author").email("author@example.com").password("secret").build());
+        voter = users.save(User.builder()
+                .username("voter").email("voter@example.com").password("secret").build());
+        postId = context.bean(PostRepository.class).save(Post.builder()
+                .title("Benchmark post").body("Benchmark body").author(author).build()).getId();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long count = votes.sumThenReset();
+        if (count > 0) {
+            System.out.printf("%n  commands per vote: %.2f%n", (double) commands.sumThenReset() / count);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void atomicIncrement() {
+        context.authenticate(voter);
+        record(BenchmarkContext.countCommands(
+                () -> voteService.vote(postId, Vote.TargetType.POST, Vote.VoteType.UPVOTE)));
+    }
+
+    @Benchmark
+    public void recountAndSave() {
+        record(BenchmarkContext.countCommands(this::legacyVote));
+    }
+
+    private void record(long sent) {
+        votes.increment();
+        commands.add(sent);
+    }
+
+    // The pre-$inc VoteService: toggle the row, recount both vote types, re-save the whole
+    // post, then look the post up again for its author and read-modify-write the reputation
+    private void legacyVote() {
+        Query mine = Query.query(Criteria.where("userId").is(voter.getId())
+                .and("targetType").is(Vote.TargetType.POST).and("targetId").is(postId));
+        Vote existing = mongoTemplate.findOne(mine, Vote.class);
+        int sign;
+        if (existing != null) {
+            mongoTemplate.remove(existing);
+            sign = -1;
+        } else {
+            mongoTemplate.insert(Vote.builder().userId(voter.getId()).targetType(Vote.TargetType.POST)
+                    .targetId(postId).voteType(Vote.VoteType.UPVOTE).build());
+            sign = 1;
+        }
+
+        Query onPost = Query.query(Criteria.where("targetType").is(Vote.TargetType.POST).and("targetId").is(postId));
+        long upvotes = mongoTemplate.count(Query.of(onPost).addCriteria(
+                Criteria.where("voteType").is(Vote.VoteType.UPVOTE)), Vote.class);
+        long downvotes = mongoTemplate.count(Query.of(onPost).addCriteria(
+                Criteria.where("voteType").is(Vote.VoteType.DOWNVOTE)), Vote.class);
+        Post post = mongoTemplate.findById(postId, Post.class);
+        post.setUpvotes((int) upvotes);
+        post.setDownvotes((int) downvotes);
+        post.setLastActivityAt(LocalDateTime.now());
+        mongoTemplate.save(post);
+
+        String authorId = mongoTemplate.findById(postId, Post.class).getAuthor().getId();
+        User author = mongoTemplate.findById(authorId, User.class);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(author.getId())),
+                new Update().set("reputation", Math.max(0, author.getReputation() + sign * 10))
+                        .set("updatedAt", LocalDateTime.now()), User.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VoteRoundTripBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.devforum.backend.service;
+
+import com.devforum.backend.dto.BatchVoteResult;
+import com.devforum.backend.dto.VoteRequest;
+import com.devforum.backend.entity.Post;
+import com.devforum.backend.entity.User;
+import com.devforum.backend.entity.Vote;
+import com.devforum.backend.repository.PostRepository;
+import com.devforum.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races many identical votes from one user on one target, through the single-vote and the batch
+ * path, and checks that at most one vote row survives and that the target's counters agree with
+ * the rows that did.
+ */
+@SpringBootTest(properties = "app.votes.write-behind.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+class VoteServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private User voter;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        // Fresh users and post per test, so no cleanup is needed between tests
+        String suffix = Long.toString(System.nanoTime());
+        User author = userRepository.save(User.builder()
+                .username("author" + suffix).email("author" + suffix + "@example.com").password("secret")
+                .build());
+        voter = userRepository.save(User.builder()
+                .username("voter" + suffix).email("voter" + suffix + "@example.com").password("secret")
+                .build());
+        post = postRepository.save(Post.builder()
+                .title("Concurrent votes").body("Body").author(author)
+                .build());
+    }
+
+    @Test
+    void concurrentIdenticalVotesKeepOneRowAndMatchingCounters() throws Exception {
+        List<String> outcomes = race(() -> voteService.vote(post.getId(), Vote.TargetType.POST, Vote.VoteType.UPVOTE));
+
+        List<Vote> rows = votesOnPost();
+        assertThat(rows).hasSizeLessThanOrEqualTo(1);
+        assertThat(rows).allMatch(vote -> vote.getVoteType() == Vote.VoteType.UPVOTE);
+
+        long created = outcomes.stream().filter("created"::equals).count();
+        long removed = outcomes.stream().filter("removed"::equals).count();
+        assertThat(created - removed).isEqualTo(rows.size());
+
+        Post stored = mongoTemplate.findById(post.getId(), Post.class);
+        assertThat(stored.getUpvotes()).isEqualTo(rows.size());
+        assertThat(stored.getDownvotes()).isZero();
+    }
+
+    @Test
+    void concurrentOpposingVotesKeepCountersInStepWithTheRow() throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        race(() -> voteService.vote(post.getId(), Vote.TargetType.POST,
+                next.getAndIncrement() % 2 == 0 ? Vote.VoteType.UPVOTE : Vote.VoteType.DOWNVOTE));
+
+        List<Vote> rows = votesOnPost();
+        assertThat(rows).hasSizeLessThanOrEqualTo(1);
+
+        Post stored = mongoTemplate.findById(post.getId(), Post.class);
+        long upvoteRows = rows.stream().filter(vote -> vote.getVoteType() == Vote.VoteType.UPVOTE).count();
+        long downvoteRows = rows.size() - upvoteRows;
+        assertThat(stored.getUpvotes()).isEqualTo((int) upvoteRows);
+        assertThat(stored.getDownvotes()).isEqualTo((int) downvoteRows);
+    }
+
+    @Test
+    void concurrentBatchesKeepOneRowAndMatchingCounters() throws Exception {
+        VoteRequest request = new VoteRequest();
+        request.setTargetType("POST");
+        request.setTargetId(post.getId());
+        request.setVoteType("UPVOTE");
+
+        List<String> outcomes = race(() -> {
+            BatchVoteResult result = voteService.voteBatch(List.of(request)).get(0);
+            return result.getError() == null ? result.getAction() : "conflict";
+        });
+
+        List<Vote> rows = votesOnPost();
+        assertThat(rows).hasSizeLessThanOrEqualTo(1);
+
+        long created = outcomes.stream().filter("created"::equals).count();
+        long removed = outcomes.stream().filter("removed"::equals).count();
+        assertThat(created - removed).isEqualTo(rows.size());
+
+        Post stored = mongoTemplate.findById(post.getId(), Post.class);
+        assertThat(stored.getUpvotes()).isEqualTo(rows.size());
+    }
+
+    // Runs the vote on THREADS threads at once as the voter; a concurrency rejection counts as "conflict"
+    private List<String> race(Callable<String> vote) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(voter, null, voter.getAuthorities()));
+                    try {
+                        start.await();
+                        return vote.call();
+                    } catch (RuntimeException e) {
+                        return "conflict";
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<String> outcomes = new ArrayList<>();
+            for (Future<String> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Vote> votesOnPost() {
+        return mongoTemplate.find(Query.query(Criteria.where("userId").is(voter.getId())
+                .and("targetId").is(post.getId())), Vote.class);
+    }
+}